@@ -0,0 +1,198 @@
+package chess;
+
+/**
+ * Precomputed attack tables for the bitboard move generator.
+ *
+ * Squares are numbered {@code row * 8 + col} using the same orientation as {@link ChessBoard}:
+ * row 0 is Black's back rank (rank 8) and row 7 is White's back rank (rank 1), so bit 0 is a8
+ * and bit 63 is h1.
+ *
+ * Sliding attacks use magic bitboards. The multipliers below were found offline with a
+ * sparse random search; with them, {@code (occupancy & mask) * magic >>> shift} maps every
+ * relevant occupancy of a square to a collision-free slot of its attack table.
+ */
+final class Bitboards {
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64]; // [player][square]
+    static final long[][] BETWEEN = new long[64][64];     // squares strictly between two aligned squares
+    static final long[][] LINE = new long[64][64];        // full line through two aligned squares
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x4100104100208000L, 0x9040002000401004L, 0x0880100009802001L, 0x2080100004080080L,
+            0x0280040081080002L, 0x0100020400080100L, 0x0880120000801100L, 0x0100024021860100L,
+            0x0000802040008009L, 0x0008402010004001L, 0x0102002042001081L, 0x0000801000800800L,
+            0x0C00800800800400L, 0x0C84808004000200L, 0x0C02000804020001L, 0x0001000042008100L,
+            0x0080014000A0004CL, 0x004000A00800B004L, 0x0020004040100800L, 0x0000210010010009L,
+            0x500E808008000400L, 0x4D02808002000400L, 0x0510040001108208L, 0x02001200004D2084L,
+            0x0000401080008020L, 0x2020022140005001L, 0x8000802200104201L, 0x0204090100100220L,
+            0x0100080080040081L, 0x0205040080020080L, 0x802010040002E801L, 0x0040004200042081L,
+            0x0008400428800088L, 0x0508201008400040L, 0x1800100080802004L, 0x0010000800801481L,
+            0x8088001009000500L, 0x0100800200800400L, 0x8212008442000801L, 0x8042800040803100L,
+            0x004080C000228000L, 0x8480804001010020L, 0x0410004020010100L, 0x0008001000088080L,
+            0x6800080004008080L, 0x0000A04004080110L, 0x0140013882140030L, 0x8820006110820004L,
+            0x5A00800040002080L, 0x5019400681002100L, 0x1819B00086200080L, 0x0201100104200900L,
+            0x0000080004110100L, 0x1002008002040080L, 0x0020210802D00400L, 0x5013210040940200L,
+            0xA080002040801101L, 0x0204400088130221L, 0x0804802822005242L, 0x010A091000850021L,
+            0x600A000810200402L, 0x0491000400080201L, 0x021100020000C421L, 0x0020040040210082L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0xC2C05020C1010120L, 0x0010041800842000L, 0xE008020404220842L, 0x0404440188000800L,
+            0x8124050400080082L, 0x00020202A0281000L, 0x00C10442024020C0L, 0x0880E02410241012L,
+            0x01424028C8010052L, 0x0080200401120020L, 0x0808482801003004L, 0x0002022082000000L,
+            0x0041011040000022L, 0x2420010120100000L, 0x00D00C0402080420L, 0x0000408048280400L,
+            0x0041000410040100L, 0x1004001181280100L, 0x8010102811204050L, 0x2908000C24210000L,
+            0x0002000400940102L, 0x0101020200420214L, 0x0100401E25100840L, 0x00470C80248A1020L,
+            0x0590400111020200L, 0x0450300985040080L, 0x0000280024004409L, 0x1809080004044010L,
+            0x0451004004004040L, 0x0020810122010080L, 0x4124086500880410L, 0x0020445001010804L,
+            0x101A084080041041L, 0x0001041031021001L, 0x0441222801100080L, 0x00024008220A0200L,
+            0x10280A0400051100L, 0x0060009380010040L, 0x01220202058C00C1L, 0x2428278105002510L,
+            0x02140202900CC280L, 0x0106089220300801L, 0x0002016124000811L, 0x100495041100D800L,
+            0x0204116012021300L, 0x20C4201401480102L, 0x09312A0801040051L, 0x009400A08202A110L,
+            0x0082084424040000L, 0x8884808098A00008L, 0x010423039A900065L, 0x1809000210440000L,
+            0x0060001102020808L, 0x0000401002208082L, 0x101042088104010AL, 0x4810210801104008L,
+            0x0008221200A00800L, 0x1480110402010400L, 0x8300848500880404L, 0x0000200000420200L,
+            0x0420000904104400L, 0x5400126004D05486L, 0x0010082004147040L, 0x0824600A46002100L
+    };
+
+    static {
+        int[][] knightOffsets = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq >>> 3;
+            int col = sq & 7;
+            for (int[] offset : knightOffsets) {
+                KNIGHT_ATTACKS[sq] |= bit(row + offset[0], col + offset[1]);
+            }
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr != 0 || dc != 0) {
+                        KING_ATTACKS[sq] |= bit(row + dr, col + dc);
+                    }
+                }
+            }
+            // White pawns move towards row 0, black pawns towards row 7
+            PAWN_ATTACKS[0][sq] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+            PAWN_ATTACKS[1][sq] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+        }
+
+        for (int sq = 0; sq < 64; sq++) {
+            ROOK_MASKS[sq] = relevantMask(sq, ROOK_DIRECTIONS);
+            BISHOP_MASKS[sq] = relevantMask(sq, BISHOP_DIRECTIONS);
+            initTable(sq, ROOK_DIRECTIONS, ROOK_MASKS[sq], ROOK_MAGICS[sq], ROOK_SHIFTS, ROOK_TABLE);
+            initTable(sq, BISHOP_DIRECTIONS, BISHOP_MASKS[sq], BISHOP_MAGICS[sq], BISHOP_SHIFTS, BISHOP_TABLE);
+            initLines(sq, ROOK_DIRECTIONS);
+            initLines(sq, BISHOP_DIRECTIONS);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    static long rookAttacks(int sq, long occupied) {
+        return ROOK_TABLE[sq][(int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+    }
+
+    static long bishopAttacks(int sq, long occupied) {
+        return BISHOP_TABLE[sq][(int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+    }
+
+    static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    private static long bit(int row, int col) {
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            return 0L;
+        }
+        return 1L << (row * 8 + col);
+    }
+
+    /**
+     * Squares whose occupancy can change the attack set of a slider on {@code sq}: every ray
+     * square except the last one before the edge.
+     */
+    private static long relevantMask(int sq, int[][] directions) {
+        long mask = 0L;
+        int row = sq >>> 3;
+        int col = sq & 7;
+        for (int[] dir : directions) {
+            int r = row + dir[0];
+            int c = col + dir[1];
+            while (r + dir[0] >= 0 && r + dir[0] < 8 && c + dir[1] >= 0 && c + dir[1] < 8) {
+                mask |= bit(r, c);
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowAttacks(int sq, long occupied, int[][] directions) {
+        long attacks = 0L;
+        int row = sq >>> 3;
+        int col = sq & 7;
+        for (int[] dir : directions) {
+            int r = row + dir[0];
+            int c = col + dir[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long b = bit(r, c);
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static void initLines(int sq, int[][] directions) {
+        int row = sq >>> 3;
+        int col = sq & 7;
+        for (int[] dir : directions) {
+            long line = ray(row, col, dir[0], dir[1]) | ray(row, col, -dir[0], -dir[1]) | (1L << sq);
+            long between = 0L;
+            int r = row + dir[0];
+            int c = col + dir[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                int target = r * 8 + c;
+                BETWEEN[sq][target] = between;
+                LINE[sq][target] = line;
+                between |= 1L << target;
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+    }
+
+    private static long ray(int row, int col, int dr, int dc) {
+        return slowAttacks(row * 8 + col, 0L, new int[][]{{dr, dc}});
+    }
+
+    private static void initTable(int sq, int[][] directions, long mask, long magic,
+                                  int[] shifts, long[][] tables) {
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+
+        // Enumerate every subset of the mask (Carry-Rippler)
+        long subset = 0L;
+        do {
+            table[(int) ((subset * magic) >>> (64 - bits))] = slowAttacks(sq, subset, directions);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        shifts[sq] = 64 - bits;
+        tables[sq] = table;
+    }
+}
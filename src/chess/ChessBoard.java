@@ -1,131 +1,290 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ChessBoard {
-    private Piece[][] board;
+    // Piece indices follow PieceType.ordinal(); bitboards are indexed player * 6 + type
+    private static final int PAWN = 0;
+    private static final int ROOK = 1;
+    private static final int KNIGHT = 2;
+    private static final int BISHOP = 3;
+    private static final int QUEEN = 4;
+    private static final int KING = 5;
+    private static final int EMPTY = -1;
+    private static final String PIECE_CHARS = "PRNBQK";
+    private static final int[] PIECE_VALUES = {1, 5, 3, 3, 9, 0};  // indexed like PIECE_CHARS
+
+    // Castling right bits: [whiteKingside, whiteQueenside, blackKingside, blackQueenside]
+    private static final int WHITE_KINGSIDE = 1;
+    private static final int WHITE_QUEENSIDE = 2;
+    private static final int BLACK_KINGSIDE = 4;
+    private static final int BLACK_QUEENSIDE = 8;
+
+    private static final int MAX_MOVES = 256;
+
+    // Undo record layout: bits 0-11 move, then captured piece + 1, castling rights,
+    // en passant target + 1, half-move clock and move kind
+    private static final int UNDO_CAPTURED_SHIFT = 12;
+    private static final int UNDO_CASTLING_SHIFT = 16;
+    private static final int UNDO_EN_PASSANT_SHIFT = 20;
+    private static final int UNDO_CLOCK_SHIFT = 27;
+    private static final int UNDO_KIND_SHIFT = 43;
+    private static final int MOVE_NORMAL = 0;
+    private static final int MOVE_EN_PASSANT = 1;
+    private static final int MOVE_CASTLING = 2;
+    private static final int MOVE_PROMOTION = 3;
+    private static final long[] NO_UNDO = new long[0];
+
+    private long[] pieces;      // one bitboard per piece type and color
+    private long[] occupancy;   // [white, black]
+    private byte[] squares;     // piece index per square, EMPTY if none
     private boolean whiteToMove;
     private int halfMoveClock; // For 50-move rule
     private int fullMoveNumber;
-    private List<String> positionHistory;
-    private int[] kingPositions; // [whiteKingRow, whiteKingCol, blackKingRow, blackKingCol]
-    private boolean[] castlingRights; // [whiteKingside, whiteQueenside, blackKingside, blackQueenside]
+    private int castlingRights;
     private int enPassantTarget; // -1 if none, otherwise encoded position
+    private long key;            // Zobrist key of the current position
+    private long[] keyHistory;   // keys of the positions played so far, current one last
+    private int historyLength;
+    private long[] undoStack = NO_UNDO;
+    private int undoTop;
 
     public ChessBoard() {
-        board = new Piece[8][8];
+        pieces = new long[12];
+        occupancy = new long[2];
+        squares = new byte[64];
         initializeBoard();
         whiteToMove = true;
         halfMoveClock = 0;
         fullMoveNumber = 1;
-        positionHistory = new ArrayList<>();
-        kingPositions = new int[4];
-        castlingRights = new boolean[]{true, true, true, true};
+        castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
         enPassantTarget = -1;
+        resetHistory();
+    }
+
+    private ChessBoard(ChessBoard other) {
+        pieces = other.pieces.clone();
+        occupancy = other.occupancy.clone();
+        squares = other.squares.clone();
+        whiteToMove = other.whiteToMove;
+        halfMoveClock = other.halfMoveClock;
+        fullMoveNumber = other.fullMoveNumber;
+        castlingRights = other.castlingRights;
+        enPassantTarget = other.enPassantTarget;
+        key = other.key;
+
+        // Positions before the last irreversible move can never repeat, so only the tail is kept
+        int kept = Math.min(other.historyLength, other.halfMoveClock + 1);
+        keyHistory = Arrays.copyOfRange(other.keyHistory, other.historyLength - kept,
+                other.historyLength - kept + Math.max(16, kept * 2));
+        historyLength = kept;
     }
 
     private void initializeBoard() {
-        // Set up pawns
+        Arrays.fill(squares, (byte) EMPTY);
+        int[] backRank = {ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK};
+
         for (int col = 0; col < 8; col++) {
-            board[1][col] = new Piece(PieceType.PAWN, 1); // Black pawns
-            board[6][col] = new Piece(PieceType.PAWN, 0); // White pawns
-        }
-
-        // Set up other pieces
-        // Black pieces (top row)
-        board[0][0] = new Piece(PieceType.ROOK, 1);
-        board[0][1] = new Piece(PieceType.KNIGHT, 1);
-        board[0][2] = new Piece(PieceType.BISHOP, 1);
-        board[0][3] = new Piece(PieceType.QUEEN, 1);
-        board[0][4] = new Piece(PieceType.KING, 1);
-        board[0][5] = new Piece(PieceType.BISHOP, 1);
-        board[0][6] = new Piece(PieceType.KNIGHT, 1);
-        board[0][7] = new Piece(PieceType.ROOK, 1);
-
-        // White pieces (bottom row)
-        board[7][0] = new Piece(PieceType.ROOK, 0);
-        board[7][1] = new Piece(PieceType.KNIGHT, 0);
-        board[7][2] = new Piece(PieceType.BISHOP, 0);
-        board[7][3] = new Piece(PieceType.QUEEN, 0);
-        board[7][4] = new Piece(PieceType.KING, 0);
-        board[7][5] = new Piece(PieceType.BISHOP, 0);
-        board[7][6] = new Piece(PieceType.KNIGHT, 0);
-        board[7][7] = new Piece(PieceType.ROOK, 0);
-
-        // Initialize king positions
-        kingPositions[0] = 7; // White king row
-        kingPositions[1] = 4; // White king col
-        kingPositions[2] = 0; // Black king row
-        kingPositions[3] = 4; // Black king col
+            // Black pieces (top rows)
+            putPiece(1, backRank[col], col);
+            putPiece(1, PAWN, 8 + col);
+            // White pieces (bottom rows)
+            putPiece(0, PAWN, 48 + col);
+            putPiece(0, backRank[col], 56 + col);
+        }
     }
 
-    public ChessBoard copy() {
-        ChessBoard copy = new ChessBoard();
-        copy.whiteToMove = this.whiteToMove;
-        copy.halfMoveClock = this.halfMoveClock;
-        copy.fullMoveNumber = this.fullMoveNumber;
-        copy.enPassantTarget = this.enPassantTarget;
-        System.arraycopy(this.kingPositions, 0, copy.kingPositions, 0, 4);
-        System.arraycopy(this.castlingRights, 0, copy.castlingRights, 0, 4);
-
-        // Deep copy the board
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (this.board[row][col] != null) {
-                    copy.board[row][col] = new Piece(
-                            this.board[row][col].getType(),
-                            this.board[row][col].getPlayer()
-                    );
+    /**
+     * Builds a board from a FEN string as produced by {@link #toFEN()}. The move counters are
+     * optional. Promotion pieces other than queens are accepted in the placement field.
+     */
+    public static ChessBoard fromFEN(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        ChessBoard board = new ChessBoard();
+        Arrays.fill(board.pieces, 0L);
+        Arrays.fill(board.occupancy, 0L);
+        Arrays.fill(board.squares, (byte) EMPTY);
+
+        int square = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+            } else {
+                int type = PIECE_CHARS.indexOf(Character.toUpperCase(c));
+                if (type < 0 || square >= 64) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
                 }
+                board.putPiece(Character.isUpperCase(c) ? 0 : 1, type, square++);
             }
         }
 
-        // Deep copy position history
-        copy.positionHistory = new ArrayList<>(this.positionHistory);
+        board.whiteToMove = fields[1].equals("w");
+        board.castlingRights = 0;
+        if (fields[2].indexOf('K') >= 0) board.castlingRights |= WHITE_KINGSIDE;
+        if (fields[2].indexOf('Q') >= 0) board.castlingRights |= WHITE_QUEENSIDE;
+        if (fields[2].indexOf('k') >= 0) board.castlingRights |= BLACK_KINGSIDE;
+        if (fields[2].indexOf('q') >= 0) board.castlingRights |= BLACK_QUEENSIDE;
+        board.enPassantTarget = fields[3].equals("-") ? -1
+                : (8 - (fields[3].charAt(1) - '0')) * 8 + (fields[3].charAt(0) - 'a');
+        board.halfMoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        board.fullMoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        board.resetHistory();
+        return board;
+    }
 
-        return copy;
+    public ChessBoard copy() {
+        return new ChessBoard(this);
     }
 
     public void applyMove(ChessMove move) {
-        Piece movingPiece = board[move.fromRow][move.fromCol];
+        doMove(move.fromSquare(), move.toSquare());
+    }
+
+    /**
+     * 64-bit Zobrist key of the current position, maintained incrementally as moves are played.
+     */
+    public long getZobristKey() {
+        return key;
+    }
+
+    private void resetHistory() {
+        key = computeKey();
+        keyHistory = new long[16];
+        keyHistory[0] = key;
+        historyLength = 1;
+    }
+
+    private long computeKey() {
+        long k = Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != EMPTY) {
+                k ^= Zobrist.PIECE_SQUARE[squares[square]][square];
+            }
+        }
+        return whiteToMove ? k : k ^ Zobrist.SIDE;
+    }
+
+    /**
+     * The en passant square only distinguishes positions when the side to move can capture on it.
+     */
+    private long enPassantKey() {
+        if (enPassantTarget == -1) {
+            return 0L;
+        }
+        int player = whiteToMove ? 0 : 1;
+        if ((Bitboards.PAWN_ATTACKS[1 - player][enPassantTarget] & pieces[player * 6 + PAWN]) == 0) {
+            return 0L;
+        }
+        return Zobrist.EN_PASSANT_FILE[enPassantTarget & 7];
+    }
+
+    /**
+     * Plays a move encoded as {@code from << 6 | to} (see {@link ChessMove#index()}) in place and
+     * pushes a compact undo record, so that {@link #unmakeMove()} can restore the position exactly.
+     * Allocates nothing once the undo and key history stacks have grown to the search depth.
+     */
+    public void makeMove(int move) {
+        if (undoTop == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, Math.max(16, undoStack.length * 2));
+        }
+        undoStack[undoTop++] = doMove(move >>> 6, move & 63);
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)}.
+     */
+    public void unmakeMove() {
+        long undo = undoStack[--undoTop];
+        int from = (int) (undo >>> 6) & 63;
+        int to = (int) undo & 63;
+        int captured = (int) (undo >>> UNDO_CAPTURED_SHIFT & 15) - 1;
+        int kind = (int) (undo >>> UNDO_KIND_SHIFT) & 3;
+
+        whiteToMove = !whiteToMove;
+        if (!whiteToMove) {
+            fullMoveNumber--;
+        }
+        int player = whiteToMove ? 0 : 1;
+
+        int moved = squares[to];
+        removePiece(moved, to);
+        putPiece(player, kind == MOVE_PROMOTION ? PAWN : moved % 6, from);
+
+        if (kind == MOVE_EN_PASSANT) {
+            putPiece(1 - player, PAWN, (from & ~7) | (to & 7));
+        } else if (captured != EMPTY) {
+            putPiece(captured / 6, captured % 6, to);
+        } else if (kind == MOVE_CASTLING) {
+            int rowBase = from & ~7;
+            int rookFrom = to > from ? rowBase + 5 : rowBase + 3;
+            int rookTo = to > from ? rowBase + 7 : rowBase;
+            removePiece(player * 6 + ROOK, rookFrom);
+            putPiece(player, ROOK, rookTo);
+        }
+
+        castlingRights = (int) (undo >>> UNDO_CASTLING_SHIFT) & 15;
+        enPassantTarget = (int) (undo >>> UNDO_EN_PASSANT_SHIFT & 127) - 1;
+        halfMoveClock = (int) (undo >>> UNDO_CLOCK_SHIFT) & 0xFFFF;
+        historyLength--;
+        key = keyHistory[historyLength - 1];
+    }
 
-        // Handle special moves
-        if (movingPiece.getType() == PieceType.KING && Math.abs(move.fromCol - move.toCol) == 2) {
+    /**
+     * Plays a move in place and returns the undo record describing the state it replaced.
+     */
+    private long doMove(int from, int to) {
+        int moving = squares[from];
+        int player = moving / 6;
+        int type = moving % 6;
+        int captured = squares[to];
+        int kind = MOVE_NORMAL;
+        long undo = (long) from << 6 | to
+                | (long) (captured + 1) << UNDO_CAPTURED_SHIFT
+                | (long) castlingRights << UNDO_CASTLING_SHIFT
+                | (long) (enPassantTarget + 1) << UNDO_EN_PASSANT_SHIFT
+                | (long) halfMoveClock << UNDO_CLOCK_SHIFT;
+        key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+
+        if (captured != EMPTY) {
+            removePiece(captured, to);
+        }
+        removePiece(moving, from);
+
+        if (type == KING && Math.abs((from & 7) - (to & 7)) == 2) {
             // Castling
-            handleCastling(move);
-        } else if (movingPiece.getType() == PieceType.PAWN && move.toCol != move.fromCol &&
-                board[move.toRow][move.toCol] == null) {
+            handleCastling(from, to);
+            kind = MOVE_CASTLING;
+        } else if (type == PAWN && (from & 7) != (to & 7) && captured == EMPTY) {
             // En passant capture
-            handleEnPassantCapture(move);
-        } else if (movingPiece.getType() == PieceType.PAWN &&
-                (move.toRow == 0 || move.toRow == 7)) {
+            handleEnPassantCapture(from, to);
+            captured = player == 0 ? 6 + PAWN : PAWN;
+            kind = MOVE_EN_PASSANT;
+        } else if (type == PAWN && (to < 8 || to >= 56)) {
             // Pawn promotion (simplified to always promote to queen)
-            movingPiece = new Piece(PieceType.QUEEN, movingPiece.getPlayer());
+            type = QUEEN;
+            kind = MOVE_PROMOTION;
         }
+        putPiece(player, type, to);
 
         // Update en passant target
         enPassantTarget = -1;
-        if (movingPiece.getType() == PieceType.PAWN && Math.abs(move.fromRow - move.toRow) == 2) {
-            enPassantTarget = (move.fromRow + move.toRow) / 2 * 8 + move.fromCol;
+        if (moving % 6 == PAWN && Math.abs(from - to) == 16) {
+            enPassantTarget = (from + to) / 2;
         }
 
-        // Update castling rights if rook or king moves
-        updateCastlingRights(move, movingPiece);
-
-        // Move the piece
-        board[move.toRow][move.toCol] = movingPiece;
-        board[move.fromRow][move.fromCol] = null;
-
-        // Update king position if king moved
-        if (movingPiece.getType() == PieceType.KING) {
-            int kingIndex = movingPiece.getPlayer() == 0 ? 0 : 2;
-            kingPositions[kingIndex] = move.toRow;
-            kingPositions[kingIndex + 1] = move.toCol;
-        }
+        // Update castling rights if rook or king moves, or a rook is captured
+        updateCastlingRights(from, to);
 
         // Update move counters
-        if (movingPiece.getType() == PieceType.PAWN || board[move.toRow][move.toCol] != null) {
+        if (moving % 6 == PAWN || captured != EMPTY) {
             halfMoveClock = 0;
         } else {
             halfMoveClock++;
@@ -137,309 +296,320 @@ public class ChessBoard {
 
         whiteToMove = !whiteToMove;
 
-        // Add current position to history (simplified FEN)
-        positionHistory.add(toFEN());
+        key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey() ^ Zobrist.SIDE;
+        if (historyLength == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, historyLength * 2);
+        }
+        keyHistory[historyLength++] = key;
+
+        return undo | (long) kind << UNDO_KIND_SHIFT;
     }
 
-    private void handleCastling(ChessMove move) {
-        int row = move.fromRow;
-        int kingCol = move.fromCol;
-        int rookCol = move.toCol > kingCol ? 7 : 0;
-        int newRookCol = move.toCol > kingCol ? 5 : 3;
+    private void handleCastling(int from, int to) {
+        int rowBase = from & ~7;
+        int rookSquare = to > from ? rowBase + 7 : rowBase;
+        int newRookSquare = to > from ? rowBase + 5 : rowBase + 3;
 
         // Move the rook
-        board[row][newRookCol] = board[row][rookCol];
-        board[row][rookCol] = null;
+        int rook = squares[rookSquare];
+        removePiece(rook, rookSquare);
+        putPiece(rook / 6, ROOK, newRookSquare);
     }
 
-    private void handleEnPassantCapture(ChessMove move) {
-        int capturedPawnRow = move.fromRow; // Same row as moving pawn before move
-        board[capturedPawnRow][move.toCol] = null; // Remove the captured pawn
+    private void handleEnPassantCapture(int from, int to) {
+        int capturedSquare = (from & ~7) | (to & 7); // Same row as moving pawn before move
+        removePiece(squares[capturedSquare], capturedSquare);
     }
 
-    private void updateCastlingRights(ChessMove move, Piece movingPiece) {
-        int player = movingPiece.getPlayer();
-        int startIndex = player == 0 ? 0 : 2;
+    private void updateCastlingRights(int from, int to) {
+        castlingRights &= ~(castlingMaskFor(from) | castlingMaskFor(to));
+    }
 
-        if (movingPiece.getType() == PieceType.KING) {
-            castlingRights[startIndex] = false;
-            castlingRights[startIndex + 1] = false;
-        } else if (movingPiece.getType() == PieceType.ROOK) {
-            if (move.fromRow == (player == 0 ? 7 : 0)) {
-                if (move.fromCol == 0) {
-                    castlingRights[startIndex + 1] = false; // Queenside
-                } else if (move.fromCol == 7) {
-                    castlingRights[startIndex] = false; // Kingside
-                }
-            }
+    private static int castlingMaskFor(int square) {
+        switch (square) {
+            case 60: return WHITE_KINGSIDE | WHITE_QUEENSIDE; // e1
+            case 63: return WHITE_KINGSIDE;                   // h1
+            case 56: return WHITE_QUEENSIDE;                  // a1
+            case 4:  return BLACK_KINGSIDE | BLACK_QUEENSIDE; // e8
+            case 7:  return BLACK_KINGSIDE;                   // h8
+            case 0:  return BLACK_QUEENSIDE;                  // a8
+            default: return 0;
         }
+    }
 
-        // If opponent captures a rook, update their castling rights
-        Piece capturedPiece = board[move.toRow][move.toCol];
-        if (capturedPiece != null && capturedPiece.getType() == PieceType.ROOK) {
-            int opponent = 1 - player;
-            int oppStartIndex = opponent == 0 ? 0 : 2;
-            if (move.toRow == (opponent == 0 ? 7 : 0)) {
-                if (move.toCol == 0) {
-                    castlingRights[oppStartIndex + 1] = false;
-                } else if (move.toCol == 7) {
-                    castlingRights[oppStartIndex] = false;
-                }
-            }
-        }
+    private void putPiece(int player, int type, int square) {
+        int index = player * 6 + type;
+        long b = 1L << square;
+        pieces[index] |= b;
+        occupancy[player] |= b;
+        squares[square] = (byte) index;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+    }
+
+    private void removePiece(int index, int square) {
+        long b = ~(1L << square);
+        pieces[index] &= b;
+        occupancy[index / 6] &= b;
+        squares[square] = EMPTY;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
     }
 
     public List<ChessMove> getLegalMoves(int player) {
-        List<ChessMove> moves = new ArrayList<>();
+        int[] moveBuffer = new int[MAX_MOVES];
+        int count = getLegalMoves(player, moveBuffer);
+        List<ChessMove> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(ChessMove.fromIndex(moveBuffer[i]));
+        }
+        return moves;
+    }
 
-        for (int fromRow = 0; fromRow < 8; fromRow++) {
-            for (int fromCol = 0; fromCol < 8; fromCol++) {
-                Piece piece = board[fromRow][fromCol];
-                if (piece != null && piece.getPlayer() == player) {
-                    moves.addAll(getMovesForPiece(fromRow, fromCol, piece));
+    /**
+     * Writes every legal move for {@code player} into {@code buffer} (at least 256 long) using the
+     * {@link #makeMove(int)} encoding and returns the number of moves written.
+     *
+     * Checkers and pinned pieces are computed once, so only legal moves are generated: when in
+     * check non-king moves must capture the checker or block its ray, pinned pieces stay on their
+     * pin line, and the king never steps onto an attacked square. The board is not modified.
+     */
+    public int getLegalMoves(int player, int[] buffer) {
+        int count = 0;
+        int opponent = 1 - player;
+        int base = player * 6;
+        long own = occupancy[player];
+        long occupied = own | occupancy[opponent];
+        long king = pieces[base + KING];
+        int kingSquare = Long.numberOfTrailingZeros(king);
+
+        long checkers = 0L;
+        long pinned = 0L;
+        if (king != 0) {
+            // The king itself must not block attacks on the squares it moves away along
+            long withoutKing = occupied ^ king;
+            long kingTargets = Bitboards.KING_ATTACKS[kingSquare] & ~own;
+            while (kingTargets != 0) {
+                int to = Long.numberOfTrailingZeros(kingTargets);
+                kingTargets &= kingTargets - 1;
+                if (attackersTo(to, withoutKing, opponent) == 0) {
+                    buffer[count++] = kingSquare << 6 | to;
                 }
             }
+
+            checkers = attackersTo(kingSquare, occupied, opponent);
+            if (Long.bitCount(checkers) > 1) {
+                return count; // Double check: only the king can move
+            }
+            pinned = pinnedPieces(player, kingSquare, occupied);
+            if (checkers == 0) {
+                count = addCastlingMoves(player, kingSquare, occupied, buffer, count);
+            }
         }
 
-        // Filter out moves that leave king in check
-        moves.removeIf(move -> {
-            ChessBoard tempBoard = this.copy();
-            tempBoard.applyMove(move);
-            return tempBoard.isInCheck(player);
-        });
+        // Squares a non-king move must land on: anywhere, or capture/block the single checker
+        long checkMask = checkers == 0 ? ~0L
+                : checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+        long targets = ~own & checkMask;
 
-        return moves;
-    }
+        count = addPawnMoves(player, occupied, checkMask, pinned, kingSquare, buffer, count);
 
-    private List<ChessMove> getMovesForPiece(int row, int col, Piece piece) {
-        List<ChessMove> moves = new ArrayList<>();
-
-        switch (piece.getType()) {
-            case PAWN:
-                addPawnMoves(row, col, piece.getPlayer(), moves);
-                break;
-            case KNIGHT:
-                addKnightMoves(row, col, piece.getPlayer(), moves);
-                break;
-            case BISHOP:
-                addSlidingMoves(row, col, piece.getPlayer(), new int[][]{{1,1}, {1,-1}, {-1,1}, {-1,-1}}, moves);
-                break;
-            case ROOK:
-                addSlidingMoves(row, col, piece.getPlayer(), new int[][]{{1,0}, {-1,0}, {0,1}, {0,-1}}, moves);
-                break;
-            case QUEEN:
-                addSlidingMoves(row, col, piece.getPlayer(),
-                        new int[][]{{1,0}, {-1,0}, {0,1}, {0,-1}, {1,1}, {1,-1}, {-1,1}, {-1,-1}}, moves);
-                break;
-            case KING:
-                addKingMoves(row, col, piece.getPlayer(), moves);
-                break;
+        long knights = pieces[base + KNIGHT] & ~pinned; // A pinned knight can never move
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(from, Bitboards.KNIGHT_ATTACKS[from] & targets, buffer, count);
         }
 
-        return moves;
-    }
+        long diagonals = pieces[base + BISHOP] | pieces[base + QUEEN];
+        while (diagonals != 0) {
+            int from = Long.numberOfTrailingZeros(diagonals);
+            diagonals &= diagonals - 1;
+            long moves = Bitboards.bishopAttacks(from, occupied) & targets;
+            count = addMoves(from, pinMask(from, pinned, kingSquare) & moves, buffer, count);
+        }
 
-    private void addPawnMoves(int row, int col, int player, List<ChessMove> moves) {
-        int direction = player == 0 ? -1 : 1; // White moves up, black moves down
+        long orthogonals = pieces[base + ROOK] | pieces[base + QUEEN];
+        while (orthogonals != 0) {
+            int from = Long.numberOfTrailingZeros(orthogonals);
+            orthogonals &= orthogonals - 1;
+            long moves = Bitboards.rookAttacks(from, occupied) & targets;
+            count = addMoves(from, pinMask(from, pinned, kingSquare) & moves, buffer, count);
+        }
 
-        // Forward move
-        if (isValidSquare(row + direction, col) && board[row + direction][col] == null) {
-            moves.add(new ChessMove(row, col, row + direction, col));
+        return count;
+    }
 
-            // Double move from starting position
-            if ((player == 0 && row == 6) || (player == 1 && row == 1)) {
-                if (board[row + 2*direction][col] == null) {
-                    moves.add(new ChessMove(row, col, row + 2*direction, col));
-                }
+    /**
+     * Own pieces that are the only piece between the king and an enemy slider on the same line.
+     */
+    private long pinnedPieces(int player, int kingSquare, long occupied) {
+        int enemyBase = (1 - player) * 6;
+        long enemy = occupancy[1 - player];
+        long queens = pieces[enemyBase + QUEEN];
+        // Slider rays from the king that see through own pieces
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemy) & (pieces[enemyBase + ROOK] | queens))
+                | (Bitboards.bishopAttacks(kingSquare, enemy) & (pieces[enemyBase + BISHOP] | queens));
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[kingSquare][sniper] & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & occupancy[player];
             }
         }
+        return pinned;
+    }
 
-        // Captures
-        for (int colOffset : new int[]{-1, 1}) {
-            int newCol = col + colOffset;
-            if (newCol >= 0 && newCol < 8) {
-                // Normal capture
-                if (isValidSquare(row + direction, newCol) &&
-                        board[row + direction][newCol] != null &&
-                        board[row + direction][newCol].getPlayer() != player) {
-                    moves.add(new ChessMove(row, col, row + direction, newCol));
-                }
+    private static long pinMask(int from, long pinned, int kingSquare) {
+        return (pinned & (1L << from)) == 0 ? ~0L : Bitboards.LINE[kingSquare][from];
+    }
 
-                // En passant
-                if (enPassantTarget != -1 &&
-                        (row + direction) == enPassantTarget / 8 &&
-                        newCol == enPassantTarget % 8) {
-                    moves.add(new ChessMove(row, col, row + direction, newCol));
+    private int addPawnMoves(int player, long occupied, long checkMask, long pinned, int kingSquare,
+                             int[] buffer, int count) {
+        long pawns = pieces[player * 6 + PAWN];
+        long empty = ~occupied;
+        long enemy = occupancy[1 - player];
+        int forward = player == 0 ? -8 : 8; // White moves up, black moves down
+        long startRow = player == 0 ? 0xFFL << 48 : 0xFFL << 8;
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long fromBit = pawns & -pawns;
+            pawns &= pawns - 1;
+            long allowed = checkMask & pinMask(from, pinned, kingSquare);
+
+            // Forward move, and double move from starting position
+            int to = from + forward;
+            if ((empty & (1L << to)) != 0) {
+                if ((allowed & (1L << to)) != 0) {
+                    buffer[count++] = from << 6 | to;
+                }
+                int doubleTo = to + forward;
+                if ((fromBit & startRow) != 0 && (empty & allowed & (1L << doubleTo)) != 0) {
+                    buffer[count++] = from << 6 | doubleTo;
                 }
             }
-        }
-    }
 
-    private void addKnightMoves(int row, int col, int player, List<ChessMove> moves) {
-        int[][] knightMoves = {
-                {2,1}, {2,-1}, {-2,1}, {-2,-1},
-                {1,2}, {1,-2}, {-1,2}, {-1,-2}
-        };
+            // Captures
+            long attacks = Bitboards.PAWN_ATTACKS[player][from];
+            count = addMoves(from, attacks & enemy & allowed, buffer, count);
 
-        for (int[] move : knightMoves) {
-            int newRow = row + move[0];
-            int newCol = col + move[1];
-            if (isValidSquare(newRow, newCol) &&
-                    (board[newRow][newCol] == null || board[newRow][newCol].getPlayer() != player)) {
-                moves.add(new ChessMove(row, col, newRow, newCol));
+            // En passant
+            if (enPassantTarget != -1 && (attacks & (1L << enPassantTarget)) != 0 &&
+                    isLegalEnPassant(player, from, kingSquare, occupied)) {
+                buffer[count++] = from << 6 | enPassantTarget;
             }
         }
+        return count;
     }
 
-    private void addSlidingMoves(int row, int col, int player, int[][] directions, List<ChessMove> moves) {
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-
-            while (isValidSquare(newRow, newCol)) {
-                if (board[newRow][newCol] == null) {
-                    moves.add(new ChessMove(row, col, newRow, newCol));
-                } else {
-                    if (board[newRow][newCol].getPlayer() != player) {
-                        moves.add(new ChessMove(row, col, newRow, newCol));
-                    }
-                    break;
-                }
-                newRow += dir[0];
-                newCol += dir[1];
-            }
+    /**
+     * En passant removes two pieces from the capturer's rank at once, which can expose the king
+     * in ways the pin mask does not see, so the resulting position is checked directly.
+     */
+    private boolean isLegalEnPassant(int player, int from, int kingSquare, long occupied) {
+        if (pieces[player * 6 + KING] == 0) {
+            return true;
         }
+        int enemyBase = (1 - player) * 6;
+        long capturedBit = 1L << ((from & ~7) | (enPassantTarget & 7));
+        long after = (occupied ^ (1L << from) ^ capturedBit) | (1L << enPassantTarget);
+        long queens = pieces[enemyBase + QUEEN];
+
+        return (Bitboards.rookAttacks(kingSquare, after) & (pieces[enemyBase + ROOK] | queens)) == 0
+                && (Bitboards.bishopAttacks(kingSquare, after) & (pieces[enemyBase + BISHOP] | queens)) == 0
+                && (Bitboards.KNIGHT_ATTACKS[kingSquare] & pieces[enemyBase + KNIGHT]) == 0
+                && (Bitboards.PAWN_ATTACKS[player][kingSquare] & pieces[enemyBase + PAWN] & ~capturedBit) == 0;
     }
 
-    private void addKingMoves(int row, int col, int player, List<ChessMove> moves) {
-        // Normal king moves
-        for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
-            for (int colOffset = -1; colOffset <= 1; colOffset++) {
-                if (rowOffset == 0 && colOffset == 0) continue;
+    private int addCastlingMoves(int player, int kingSquare, long occupied, int[] buffer, int count) {
+        int homeSquare = player == 0 ? 60 : 4;
+        int kingside = player == 0 ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = player == 0 ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        int rook = player * 6 + ROOK;
+        int opponent = 1 - player;
 
-                int newRow = row + rowOffset;
-                int newCol = col + colOffset;
-                if (isValidSquare(newRow, newCol) &&
-                        (board[newRow][newCol] == null || board[newRow][newCol].getPlayer() != player)) {
-                    moves.add(new ChessMove(row, col, newRow, newCol));
-                }
-            }
+        if (kingSquare != homeSquare || (castlingRights & (kingside | queenside)) == 0) {
+            return count;
         }
 
-        // Castling
-        int castlingIndex = player == 0 ? 0 : 2;
-        int backRank = player == 0 ? 7 : 0;
-
-        if (row == backRank && col == 4) { // King on starting position
-            // Kingside castling
-            if (castlingRights[castlingIndex] &&
-                    board[backRank][5] == null &&
-                    board[backRank][6] == null &&
-                    board[backRank][7] != null &&
-                    board[backRank][7].getType() == PieceType.ROOK &&
-                    board[backRank][7].getPlayer() == player &&
-                    !isInCheck(player) &&
-                    !isSquareAttacked(backRank, 5, 1 - player) &&
-                    !isSquareAttacked(backRank, 6, 1 - player)) {
-                moves.add(new ChessMove(row, col, row, col + 2));
-            }
+        if ((castlingRights & kingside) != 0 &&
+                (occupied & (3L << (homeSquare + 1))) == 0 &&
+                squares[homeSquare + 3] == rook &&
+                attackersTo(homeSquare + 1, occupied, opponent) == 0 &&
+                attackersTo(homeSquare + 2, occupied, opponent) == 0) {
+            buffer[count++] = homeSquare << 6 | (homeSquare + 2);
+        }
 
-            // Queenside castling
-            if (castlingRights[castlingIndex + 1] &&
-                    board[backRank][3] == null &&
-                    board[backRank][2] == null &&
-                    board[backRank][1] == null &&
-                    board[backRank][0] != null &&
-                    board[backRank][0].getType() == PieceType.ROOK &&
-                    board[backRank][0].getPlayer() == player &&
-                    !isInCheck(player) &&
-                    !isSquareAttacked(backRank, 3, 1 - player) &&
-                    !isSquareAttacked(backRank, 2, 1 - player)) {
-                moves.add(new ChessMove(row, col, row, col - 2));
-            }
+        if ((castlingRights & queenside) != 0 &&
+                (occupied & (7L << (homeSquare - 3))) == 0 &&
+                squares[homeSquare - 4] == rook &&
+                attackersTo(homeSquare - 1, occupied, opponent) == 0 &&
+                attackersTo(homeSquare - 2, occupied, opponent) == 0) {
+            buffer[count++] = homeSquare << 6 | (homeSquare - 2);
         }
+        return count;
     }
 
-    public boolean isInCheck(int player) {
-        int kingRow = kingPositions[player == 0 ? 0 : 2];
-        int kingCol = kingPositions[player == 0 ? 1 : 3];
-        return isSquareAttacked(kingRow, kingCol, 1 - player);
-    }
-
-    private boolean isSquareAttacked(int row, int col, int byPlayer) {
-        // Check for pawn attacks
-        int pawnDirection = byPlayer == 0 ? -1 : 1;
-        for (int colOffset : new int[]{-1, 1}) {
-            int pawnRow = row - pawnDirection;
-            int pawnCol = col + colOffset;
-            if (isValidSquare(pawnRow, pawnCol) &&
-                    board[pawnRow][pawnCol] != null &&
-                    board[pawnRow][pawnCol].getType() == PieceType.PAWN &&
-                    board[pawnRow][pawnCol].getPlayer() == byPlayer) {
-                return true;
-            }
+    private static int addMoves(int from, long targets, int[] buffer, int count) {
+        while (targets != 0) {
+            buffer[count++] = from << 6 | Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
         }
+        return count;
+    }
 
-        // Check for knight attacks
-        int[][] knightMoves = {
-                {2,1}, {2,-1}, {-2,1}, {-2,-1},
-                {1,2}, {1,-2}, {-1,2}, {-1,-2}
-        };
-        for (int[] move : knightMoves) {
-            int knightRow = row + move[0];
-            int knightCol = col + move[1];
-            if (isValidSquare(knightRow, knightCol) &&
-                    board[knightRow][knightCol] != null &&
-                    board[knightRow][knightCol].getType() == PieceType.KNIGHT &&
-                    board[knightRow][knightCol].getPlayer() == byPlayer) {
-                return true;
-            }
+    /**
+     * Material of {@code player} minus that of the opponent, in pawns (P 1, N 3, B 3, R 5, Q 9).
+     */
+    int materialBalance(int player) {
+        int balance = 0;
+        for (int type = PAWN; type < KING; type++) {
+            int count = Long.bitCount(pieces[player * 6 + type]) - Long.bitCount(pieces[(1 - player) * 6 + type]);
+            balance += count * PIECE_VALUES[type];
         }
+        return balance;
+    }
 
-        // Check for sliding pieces (queen, rook, bishop)
-        int[][] queenDirections = {
-                {1,0}, {-1,0}, {0,1}, {0,-1}, {1,1}, {1,-1}, {-1,1}, {-1,-1}
-        };
-
-        for (int[] dir : queenDirections) {
-            int r = row + dir[0];
-            int c = col + dir[1];
-            while (isValidSquare(r, c)) {
-                if (board[r][c] != null) {
-                    if (board[r][c].getPlayer() == byPlayer) {
-                        PieceType type = board[r][c].getType();
-                        if ((dir[0] == 0 || dir[1] == 0) &&
-                                (type == PieceType.QUEEN || type == PieceType.ROOK)) {
-                            return true;
-                        }
-                        if ((dir[0] != 0 && dir[1] != 0) &&
-                                (type == PieceType.QUEEN || type == PieceType.BISHOP)) {
-                            return true;
-                        }
-                    }
-                    break;
-                }
-                r += dir[0];
-                c += dir[1];
+    /**
+     * The board as an 8x8 grid indexed [row][col] like the squares: 0 for empty, otherwise the
+     * piece type + 1, positive for White and negative for Black.
+     */
+    int[][] toPieceGrid() {
+        int[][] grid = new int[8][8];
+        for (int square = 0; square < 64; square++) {
+            int piece = squares[square];
+            if (piece != EMPTY) {
+                grid[square / 8][square % 8] = piece < 6 ? piece + 1 : -(piece - 6 + 1);
             }
         }
+        return grid;
+    }
 
-        // Check for king attacks
-        for (int rOffset = -1; rOffset <= 1; rOffset++) {
-            for (int cOffset = -1; cOffset <= 1; cOffset++) {
-                if (rOffset == 0 && cOffset == 0) continue;
-                int kingRow = row + rOffset;
-                int kingCol = col + cOffset;
-                if (isValidSquare(kingRow, kingCol) &&
-                        board[kingRow][kingCol] != null &&
-                        board[kingRow][kingCol].getType() == PieceType.KING &&
-                        board[kingRow][kingCol].getPlayer() == byPlayer) {
-                    return true;
-                }
-            }
-        }
+    boolean hasCastlingRights() {
+        return castlingRights != 0;
+    }
 
-        return false;
+    public boolean isInCheck(int player) {
+        long king = pieces[player * 6 + KING];
+        return king != 0 &&
+                attackersTo(Long.numberOfTrailingZeros(king), occupancy[0] | occupancy[1], 1 - player) != 0;
+    }
+
+    /**
+     * Pieces of {@code byPlayer} attacking {@code square}, with sliders blocked by {@code occupied}.
+     */
+    private long attackersTo(int square, long occupied, int byPlayer) {
+        int base = byPlayer * 6;
+        long queens = pieces[base + QUEEN];
+
+        // A square is attacked by a pawn of byPlayer if a pawn of the other color there would attack it
+        return (Bitboards.PAWN_ATTACKS[1 - byPlayer][square] & pieces[base + PAWN])
+                | (Bitboards.KNIGHT_ATTACKS[square] & pieces[base + KNIGHT])
+                | (Bitboards.KING_ATTACKS[square] & pieces[base + KING])
+                | (Bitboards.bishopAttacks(square, occupied) & (pieces[base + BISHOP] | queens))
+                | (Bitboards.rookAttacks(square, occupied) & (pieces[base + ROOK] | queens));
     }
 
     public boolean isCheckmate() {
@@ -458,19 +628,17 @@ public class ChessBoard {
 
     public boolean isDraw() {
         // 50-move rule
-        if (halfMoveClock >= 50) {
+        if (halfMoveClock >= 100) {
             return true;
         }
 
-        // Threefold repetition
-        String currentFEN = toFEN();
+        // Threefold repetition: only positions since the last irreversible move with the same
+        // side to move can match the current one
+        int oldest = Math.max(0, historyLength - 1 - halfMoveClock);
         int repetitions = 0;
-        for (String position : positionHistory) {
-            if (position.equals(currentFEN)) {
-                repetitions++;
-                if (repetitions >= 2) { // Current position + 2 previous occurrences
-                    return true;
-                }
+        for (int i = historyLength - 3; i >= oldest; i -= 2) {
+            if (keyHistory[i] == key && ++repetitions >= 2) { // Current position + 2 previous occurrences
+                return true;
             }
         }
 
@@ -479,106 +647,34 @@ public class ChessBoard {
     }
 
     private boolean hasInsufficientMaterial() {
-        int whitePieces = 0;
-        int blackPieces = 0;
-        boolean whiteHasNonKing = false;
-        boolean blackHasNonKing = false;
-        boolean whiteHasBishopOrKnight = false;
-        boolean blackHasBishopOrKnight = false;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null) {
-                    if (piece.getPlayer() == 0) {
-                        whitePieces++;
-                        if (piece.getType() != PieceType.KING) {
-                            whiteHasNonKing = true;
-                            if (piece.getType() == PieceType.BISHOP || piece.getType() == PieceType.KNIGHT) {
-                                whiteHasBishopOrKnight = true;
-                            }
-                        }
-                    } else {
-                        blackPieces++;
-                        if (piece.getType() != PieceType.KING) {
-                            blackHasNonKing = true;
-                            if (piece.getType() == PieceType.BISHOP || piece.getType() == PieceType.KNIGHT) {
-                                blackHasBishopOrKnight = true;
-                            }
-                        }
-                    }
-                }
-            }
+        long heavy = pieces[PAWN] | pieces[ROOK] | pieces[QUEEN] |
+                pieces[6 + PAWN] | pieces[6 + ROOK] | pieces[6 + QUEEN];
+        if (heavy != 0) {
+            return false;
         }
 
-        // King vs King
-        if (!whiteHasNonKing && !blackHasNonKing) {
-            return true;
-        }
+        long whiteMinors = pieces[BISHOP] | pieces[KNIGHT];
+        long blackMinors = pieces[6 + BISHOP] | pieces[6 + KNIGHT];
+        int whiteCount = Long.bitCount(whiteMinors);
+        int blackCount = Long.bitCount(blackMinors);
 
-        // King + bishop/knight vs King
-        if ((whitePieces == 1 && blackPieces == 2 && blackHasBishopOrKnight) ||
-                (blackPieces == 1 && whitePieces == 2 && whiteHasBishopOrKnight)) {
+        // King vs King, or King + bishop/knight vs King
+        if (whiteCount + blackCount <= 1) {
             return true;
         }
 
         // King + bishop vs King + bishop with bishops on same color
-        if (whitePieces == 2 && blackPieces == 2 &&
-                whiteHasBishopOrKnight && blackHasBishopOrKnight) {
-            // Check if both sides have only a bishop and they're on the same color
-            return areOnlyBishopsOnSameColor();
+        if (whiteCount == 1 && blackCount == 1 &&
+                pieces[BISHOP] != 0 && pieces[6 + BISHOP] != 0) {
+            return squareColor(Long.numberOfTrailingZeros(pieces[BISHOP])) ==
+                    squareColor(Long.numberOfTrailingZeros(pieces[6 + BISHOP]));
         }
 
         return false;
     }
 
-    private boolean areOnlyBishopsOnSameColor() {
-        Piece whiteBishop = null;
-        Piece blackBishop = null;
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getType() == PieceType.BISHOP) {
-                    if (piece.getPlayer() == 0) {
-                        whiteBishop = piece;
-                    } else {
-                        blackBishop = piece;
-                    }
-                } else if (piece != null && piece.getType() != PieceType.KING) {
-                    return false; // Found a non-bishop, non-king piece
-                }
-            }
-        }
-
-        if (whiteBishop == null || blackBishop == null) {
-            return false;
-        }
-
-        // Find positions of the bishops
-        int whiteBishopRow = -1, whiteBishopCol = -1;
-        int blackBishopRow = -1, blackBishopCol = -1;
-
-        outer:
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece == whiteBishop) {
-                    whiteBishopRow = row;
-                    whiteBishopCol = col;
-                } else if (piece == blackBishop) {
-                    blackBishopRow = row;
-                    blackBishopCol = col;
-                }
-
-                if (whiteBishopRow != -1 && blackBishopRow != -1) {
-                    break outer;
-                }
-            }
-        }
-
-        // Check if bishops are on the same color
-        return (whiteBishopRow + whiteBishopCol) % 2 == (blackBishopRow + blackBishopCol) % 2;
+    private static int squareColor(int square) {
+        return ((square >>> 3) + (square & 7)) & 1;
     }
 
     public int getWinner() {
@@ -588,8 +684,9 @@ public class ChessBoard {
         return -1; // No winner yet
     }
 
-    private boolean isValidSquare(int row, int col) {
-        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    private char pieceChar(int index) {
+        char c = PIECE_CHARS.charAt(index % 6);
+        return index >= 6 ? Character.toLowerCase(c) : c;
     }
 
     public String toFEN() {
@@ -600,19 +697,15 @@ public class ChessBoard {
         for (int row = 0; row < 8; row++) {
             int emptyCount = 0;
             for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece == null) {
+                int piece = squares[row * 8 + col];
+                if (piece == EMPTY) {
                     emptyCount++;
                 } else {
                     if (emptyCount > 0) {
                         fen.append(emptyCount);
                         emptyCount = 0;
                     }
-                    char c = piece.getType().toString().charAt(0);
-                    if (piece.getPlayer() == 1) {
-                        c = Character.toLowerCase(c);
-                    }
-                    fen.append(c);
+                    fen.append(pieceChar(piece));
                 }
             }
             if (emptyCount > 0) {
@@ -628,12 +721,11 @@ public class ChessBoard {
 
         // Castling availability
         fen.append(' ');
-        boolean anyCastling = false;
-        if (castlingRights[0]) { fen.append('K'); anyCastling = true; }
-        if (castlingRights[1]) { fen.append('Q'); anyCastling = true; }
-        if (castlingRights[2]) { fen.append('k'); anyCastling = true; }
-        if (castlingRights[3]) { fen.append('q'); anyCastling = true; }
-        if (!anyCastling) fen.append('-');
+        if ((castlingRights & WHITE_KINGSIDE) != 0) fen.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) fen.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) fen.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) fen.append('q');
+        if (castlingRights == 0) fen.append('-');
 
         // En passant
         fen.append(' ');
@@ -658,15 +750,11 @@ public class ChessBoard {
         for (int row = 0; row < 8; row++) {
             sb.append(8 - row).append(" ");
             for (int col = 0; col < 8; col++) {
-                Piece piece = board[row][col];
-                if (piece == null) {
+                int piece = squares[row * 8 + col];
+                if (piece == EMPTY) {
                     sb.append(". ");
                 } else {
-                    char c = piece.getType().toString().charAt(0);
-                    if (piece.getPlayer() == 1) {
-                        c = Character.toLowerCase(c);
-                    }
-                    sb.append(c).append(" ");
+                    sb.append(pieceChar(piece)).append(" ");
                 }
             }
             sb.append(8 - row).append("\n");
@@ -675,4 +763,4 @@ public class ChessBoard {
         sb.append(whiteToMove ? "White" : "Black").append(" to move\n");
         return sb.toString();
     }
-}
\ No newline at end of file
+}
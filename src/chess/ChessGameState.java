@@ -1,21 +1,39 @@
 package chess;
 
+import main.BoardSymmetry;
 import main.GameState;
 
 import java.util.*;
 import java.util.ArrayList;
 
 public class ChessGameState implements GameState<ChessMove> {
+    private enum Outcome { ONGOING, CHECKMATE, STALEMATE, DRAW }
+
+    // Left-right mirror of the board; moves map square by square, as from << 6 | to
+    private static final List<BoardSymmetry> MIRROR = List.of(mirror());
+
     private final ChessBoard board;
     private final int currentPlayer; // 0 = White, 1 = Black
     private final int moveCount;
 
+    // The state is immutable, so move generation and the outcome are computed at most once.
+    // A race between threads only computes the same values twice.
+    private volatile List<ChessMove> legalMoves;
+    private volatile Outcome outcome;
+
     public ChessGameState() {
         this.board = new ChessBoard(); // Initialize standard chess board
         this.currentPlayer = 0; // White starts
         this.moveCount = 0;
     }
 
+    /**
+     * The position described by {@code fen}; the move count starts at zero.
+     */
+    public static ChessGameState fromFEN(String fen) {
+        return new ChessGameState(ChessBoard.fromFEN(fen), fen.trim().split("\\s+")[1].equals("w") ? 0 : 1, 0);
+    }
+
     private ChessGameState(ChessBoard board, int currentPlayer, int moveCount) {
         this.board = board;
         this.currentPlayer = currentPlayer;
@@ -24,12 +42,33 @@ public class ChessGameState implements GameState<ChessMove> {
 
     @Override
     public boolean isTerminal() {
-        return board.isCheckmate() || board.isStalemate() || board.isDraw();
+        return getOutcome() != Outcome.ONGOING;
     }
 
+    /**
+     * Returns the cached, unmodifiable list of legal moves for the player to move.
+     */
     @Override
     public List<ChessMove> getLegalActions() {
-        return board.getLegalMoves(currentPlayer);
+        List<ChessMove> moves = legalMoves;
+        if (moves == null) {
+            moves = Collections.unmodifiableList(board.getLegalMoves(currentPlayer));
+            legalMoves = moves;
+        }
+        return moves;
+    }
+
+    private Outcome getOutcome() {
+        Outcome result = outcome;
+        if (result == null) {
+            if (getLegalActions().isEmpty()) {
+                result = board.isInCheck(currentPlayer) ? Outcome.CHECKMATE : Outcome.STALEMATE;
+            } else {
+                result = board.isDraw() ? Outcome.DRAW : Outcome.ONGOING;
+            }
+            outcome = result;
+        }
+        return result;
     }
 
     @Override
@@ -48,6 +87,16 @@ public class ChessGameState implements GameState<ChessMove> {
         return allMoves;
     }
 
+    @Override
+    public int actionIndex(ChessMove action) {
+        return action.index();
+    }
+
+    @Override
+    public ChessMove actionAt(int index) {
+        return ChessMove.fromIndex(index);
+    }
+
     @Override
     public GameState<ChessMove> takeAction(ChessMove action) {
         ChessBoard newBoard = board.copy();
@@ -55,6 +104,10 @@ public class ChessGameState implements GameState<ChessMove> {
         return new ChessGameState(newBoard, 1 - currentPlayer, moveCount + 1);
     }
 
+    ChessBoard getBoard() {
+        return board;
+    }
+
     @Override
     public int getCurrentPlayer() {
         return currentPlayer;
@@ -62,14 +115,16 @@ public class ChessGameState implements GameState<ChessMove> {
 
     @Override
     public double getReward(int player) {
-        if (board.isCheckmate()) {
-            // Checkmate: +1 for the winning player, -1 for the losing player
-            int winner = board.getWinner();
-            return (winner == player) ? 1.0 : -1.0;
-        } else if (board.isStalemate() || board.isDraw()) {
-            return 0.0; // Draw
-        } else {
-            throw new IllegalStateException("Non-terminal state has no reward");
+        switch (getOutcome()) {
+            case CHECKMATE:
+                // Checkmate: +1 for the winning player (the one who just moved), -1 for the losing player
+                int winner = 1 - currentPlayer;
+                return (winner == player) ? 1.0 : -1.0;
+            case STALEMATE:
+            case DRAW:
+                return 0.0; // Draw
+            default:
+                throw new IllegalStateException("Non-terminal state has no reward");
         }
     }
 
@@ -81,14 +136,18 @@ public class ChessGameState implements GameState<ChessMove> {
 
     @Override
     public void printWinner() {
-        if (board.isCheckmate()) {
-            System.out.println("Checkmate! " + (board.getWinner() == 0 ? "White" : "Black") + " wins!");
-        } else if (board.isStalemate()) {
-            System.out.println("Stalemate! It's a draw.");
-        } else if (board.isDraw()) {
-            System.out.println("Draw by repetition or 50-move rule.");
-        } else {
-            System.out.println("Game is still in progress.");
+        switch (getOutcome()) {
+            case CHECKMATE:
+                System.out.println("Checkmate! " + (currentPlayer == 1 ? "White" : "Black") + " wins!");
+                break;
+            case STALEMATE:
+                System.out.println("Stalemate! It's a draw.");
+                break;
+            case DRAW:
+                System.out.println("Draw by repetition, 50-move rule or insufficient material.");
+                break;
+            default:
+                System.out.println("Game is still in progress.");
         }
     }
 
@@ -99,7 +158,48 @@ public class ChessGameState implements GameState<ChessMove> {
 
     @Override
     public int[][] convertBoard() {
-        return new int[0][];
+        return board.toPieceGrid();
+    }
+
+    /**
+     * Mirroring files only preserves the game once neither side can castle, since the king and
+     * queen do not mirror onto each other.
+     */
+    @Override
+    public List<BoardSymmetry> getSymmetries() {
+        return board.hasCastlingRights() ? List.of() : MIRROR;
+    }
+
+    private static BoardSymmetry mirror() {
+        int[] squares = new int[64];
+        for (int square = 0; square < 64; square++) {
+            squares[square] = (square & ~7) | (7 - (square & 7));
+        }
+        int[] moves = new int[4096];
+        for (int move = 0; move < 4096; move++) {
+            moves[move] = squares[move >>> 6] << 6 | squares[move & 63];
+        }
+        return new BoardSymmetry(8, 8, squares, moves);
+    }
+
+    /**
+     * States are equal when their boards have the same Zobrist key, so transpositions compare equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChessGameState)) return false;
+        return board.getZobristKey() == ((ChessGameState) o).board.getZobristKey();
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(board.getZobristKey());
+    }
+
+    @Override
+    public long positionKey() {
+        return board.getZobristKey();
     }
 
     @Override
@@ -1,6 +1,6 @@
 package chess;
 
-public class ChessMove {
+public class ChessMove implements Comparable<ChessMove> {
     final int fromRow;
     final int fromCol;
     final int toRow;
@@ -13,6 +13,45 @@ public class ChessMove {
         this.toCol = toCol;
     }
 
+    static ChessMove fromIndex(int index) {
+        int from = index >>> 6;
+        int to = index & 63;
+        return new ChessMove(from >>> 3, from & 7, to >>> 3, to & 7);
+    }
+
+    int fromSquare() {
+        return fromRow * 8 + fromCol;
+    }
+
+    int toSquare() {
+        return toRow * 8 + toCol;
+    }
+
+    /**
+     * Dense index of this move in [0, 4096), {@code from << 6 | to}, ordered the same way as
+     * ChessGameState.getAllActions(). This is also the encoding used by ChessBoard.makeMove(int).
+     */
+    public int index() {
+        return fromSquare() << 6 | toSquare();
+    }
+
+    @Override
+    public int compareTo(ChessMove other) {
+        return Integer.compare(index(), other.index());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChessMove)) return false;
+        return index() == ((ChessMove) o).index();
+    }
+
+    @Override
+    public int hashCode() {
+        return index();
+    }
+
     @Override
     public String toString() {
         return String.format("(%d,%d)->(%d,%d)", fromRow, fromCol, toRow, toCol);
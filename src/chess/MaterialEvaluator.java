@@ -0,0 +1,23 @@
+package chess;
+
+import main.Evaluator;
+import main.GameState;
+import main.NeuralNetworkOutput;
+
+/**
+ * Static chess evaluation by material count. The balance in pawns for the player to move is
+ * squashed into (-1, 1) with tanh, so being a rook ahead scores about 0.55.
+ */
+public class MaterialEvaluator implements Evaluator<ChessMove> {
+    private static final double PAWNS_PER_UNIT = 8.0;
+
+    @Override
+    public NeuralNetworkOutput<ChessMove> evaluate(GameState<ChessMove> state) {
+        int player = state.getCurrentPlayer();
+        if (state.isTerminal()) {
+            return Evaluator.valueOnly(state.getReward(player));
+        }
+        int balance = ((ChessGameState) state).getBoard().materialBalance(player);
+        return Evaluator.valueOnly(Math.tanh(balance / PAWNS_PER_UNIT));
+    }
+}
@@ -0,0 +1,44 @@
+package chess;
+
+/**
+ * Random keys for incremental 64-bit Zobrist hashing of chess positions. A position's key is the
+ * XOR of one key per (piece, square), the castling rights, the en passant file when a capture
+ * is possible, and {@link #SIDE} when Black is to move.
+ *
+ * The keys come from a fixed-seed SplitMix64 sequence so hashes are stable across runs.
+ */
+final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[12][64]; // [player * 6 + type][square]
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long SIDE;
+
+    static {
+        long state = 0x2545F4914F6CDD1DL;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                PIECE_SQUARE[piece][square] = mix(state);
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING[rights] = mix(state);
+        }
+        for (int file = 0; file < 8; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[file] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        SIDE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
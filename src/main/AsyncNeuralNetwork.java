@@ -0,0 +1,228 @@
+package main;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * {@link Predictor} that sends predictions through a non-blocking HTTP client, so many
+ * self-play threads can have requests in flight without each holding a blocked connection.
+ * Training and model loading stay with {@link NeuralNetwork}.
+ *
+ * With {@link Protocol#HTTP_1_1} requests share a keep-alive connection pool sized for the number
+ * of callers. With {@link Protocol#HTTP_2} all requests are multiplexed as streams over a single
+ * connection; the server must accept HTTP/2 over plain TCP (h2c with prior knowledge). Either
+ * way at most {@code maxInFlight} requests are outstanding. Further requests are queued and sent
+ * as earlier ones finish, so the async calls never block and may be chained from completion
+ * callbacks, which run on the client's I/O threads.
+ */
+public class AsyncNeuralNetwork<ActionType> implements Predictor<ActionType>, AutoCloseable {
+    public enum Protocol {
+        HTTP_1_1,
+        HTTP_2
+    }
+
+    private final ObjectWriter writer = new ObjectMapper().writer();
+    private final String baseUrl;
+    // Guarded by pending
+    private int freePermits;
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private final CloseableHttpAsyncClient asyncClient;
+
+    public AsyncNeuralNetwork(int maxInFlight, Protocol protocol) {
+        this(NeuralNetwork.BASE_URL, maxInFlight, protocol);
+    }
+
+    /**
+     * @param maxInFlight requests outstanding at once, and the size of the HTTP/1.1 connection
+     *                    pool; about the number of threads calling predict
+     */
+    public AsyncNeuralNetwork(String baseUrl, int maxInFlight, Protocol protocol) {
+        this.baseUrl = baseUrl;
+        this.freePermits = maxInFlight;
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(Math.min(maxInFlight, Runtime.getRuntime().availableProcessors()))
+                .setTcpNoDelay(true)
+                .setSoTimeout(Timeout.ofSeconds(30))
+                .build();
+
+        if (protocol == Protocol.HTTP_2) {
+            // The stream limit in H2Config only caps streams the server opens, so the semaphore
+            // is what bounds our requests
+            asyncClient = H2AsyncClientBuilder.create()
+                    .setH2Config(H2Config.custom()
+                            .setPushEnabled(false)
+                            .build())
+                    .setIOReactorConfig(reactorConfig)
+                    .build();
+        } else {
+            asyncClient = HttpAsyncClients.custom()
+                    .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                            .setMaxConnTotal(maxInFlight)
+                            .setMaxConnPerRoute(maxInFlight)  // every request goes to the same host
+                            .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.LAX)
+                            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                    .setConnectTimeout(Timeout.ofSeconds(5))
+                                    .setTimeToLive(TimeValue.ofMinutes(10))
+                                    .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                                    .build())
+                            .build())
+                    .setIOReactorConfig(reactorConfig)
+                    .build();
+        }
+        asyncClient.start();
+    }
+
+    public CompletableFuture<NeuralNetworkOutput<ActionType>> predictAsync(TrainingExample<ActionType> input) {
+        return post("/predict", input, NeuralNetwork::deserializeOutput, "Failed to make prediction request");
+    }
+
+    public CompletableFuture<List<NeuralNetworkOutput<ActionType>>> predictBatchAsync(List<TrainingExample<ActionType>> inputs) {
+        return post("/predict_batch", inputs, NeuralNetwork::deserializeBatchOutput, "Failed to make batch prediction request");
+    }
+
+    /**
+     * Posts {@code body} as JSON to {@code path} once a request permit is free, and parses a 200
+     * response with {@code parser}. Returns straight away; the request waits in the queue if
+     * every permit is taken.
+     */
+    private <T> CompletableFuture<T> post(String path, Object body, Function<String, T> parser, String failure) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        SimpleHttpRequest request;
+        try {
+            request = SimpleRequestBuilder.post(baseUrl + path)
+                    .setBody(writer.writeValueAsBytes(body), ContentType.APPLICATION_JSON)
+                    .build();
+        } catch (IOException e) {
+            result.completeExceptionally(new RuntimeException(failure, e));
+            return result;
+        }
+        acquire(() -> send(request, parser, failure, result));
+        return result;
+    }
+
+    /**
+     * Sends a request that holds a permit; the permit is released once it has an outcome.
+     */
+    private <T> void send(SimpleHttpRequest request, Function<String, T> parser, String failure, CompletableFuture<T> result) {
+        try {
+            asyncClient.execute(request, new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    release();
+                    if (response.getCode() != 200) {
+                        result.completeExceptionally(new RuntimeException(
+                                failure + ": status " + response.getCode()));
+                        return;
+                    }
+                    try {
+                        result.complete(parser.apply(response.getBodyText()));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    release();
+                    result.completeExceptionally(new RuntimeException(failure, e));
+                }
+
+                @Override
+                public void cancelled() {
+                    release();
+                    result.cancel(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rejected before it was sent, for example after close
+            release();
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs {@code send} now if a permit is free, otherwise once one is released.
+     */
+    private void acquire(Runnable send) {
+        synchronized (pending) {
+            if (freePermits == 0) {
+                pending.add(send);
+                return;
+            }
+            freePermits--;
+        }
+        send.run();
+    }
+
+    /**
+     * Hands the permit to the oldest queued request, or frees it if none is waiting.
+     */
+    private void release() {
+        Runnable next;
+        synchronized (pending) {
+            next = pending.poll();
+            if (next == null) {
+                freePermits++;
+                return;
+            }
+        }
+        next.run();
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> predict(TrainingExample<ActionType> input) {
+        return join(predictAsync(input));
+    }
+
+    @Override
+    public List<NeuralNetworkOutput<ActionType>> predictBatch(List<TrainingExample<ActionType>> inputs) {
+        return join(predictBatchAsync(inputs));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        asyncClient.close(CloseMode.GRACEFUL);
+        // Anything still queued is rejected by the closed client and fails
+        List<Runnable> queued;
+        synchronized (pending) {
+            queued = List.copyOf(pending);
+            pending.clear();
+        }
+        queued.forEach(Runnable::run);
+    }
+}
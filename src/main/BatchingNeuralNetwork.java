@@ -0,0 +1,131 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link NeuralNetwork} that groups predictions from many threads into {@code /predict_batch}
+ * requests.
+ *
+ * A single dispatcher thread waits for the first pending prediction, then keeps collecting until
+ * the batch holds {@code maxBatchSize} inputs or {@code maxWaitMillis} have passed, and sends them
+ * all in one request. {@link #predict} blocks on the result, so searches written against
+ * NeuralNetwork (such as the self-play games of {@link MCTSAlpha}) are batched without changes.
+ */
+public class BatchingNeuralNetwork<ActionType> extends NeuralNetwork<ActionType> implements AutoCloseable {
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingPrediction<ActionType>> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    private static class PendingPrediction<ActionType> {
+        final TrainingExample<ActionType> input;
+        final CompletableFuture<NeuralNetworkOutput<ActionType>> result = new CompletableFuture<>();
+
+        PendingPrediction(TrainingExample<ActionType> input) {
+            this.input = input;
+        }
+    }
+
+    public BatchingNeuralNetwork(int maxBatchSize, long maxWaitMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.dispatcher = new Thread(this::dispatchLoop, "inference-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queues {@code input} for the next batch.
+     */
+    public CompletableFuture<NeuralNetworkOutput<ActionType>> submit(TrainingExample<ActionType> input) {
+        PendingPrediction<ActionType> pending = new PendingPrediction<>(input);
+        if (closed) {
+            pending.result.completeExceptionally(new IllegalStateException("Inference batcher is closed"));
+            return pending.result;
+        }
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            // close() raced with this call and the dispatcher may already be gone
+            pending.result.completeExceptionally(new IllegalStateException("Inference batcher is closed"));
+        }
+        return pending.result;
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> predict(TrainingExample<ActionType> input) {
+        try {
+            return submit(input).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void dispatchLoop() {
+        List<PendingPrediction<ActionType>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingPrediction<ActionType> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // close() stops the dispatcher; fail whatever it was still holding
+        }
+        queue.drainTo(batch);
+        for (PendingPrediction<ActionType> pending : batch) {
+            pending.result.completeExceptionally(new IllegalStateException("Inference batcher is closed"));
+        }
+    }
+
+    private void send(List<PendingPrediction<ActionType>> batch) {
+        List<TrainingExample<ActionType>> inputs = new ArrayList<>(batch.size());
+        for (PendingPrediction<ActionType> pending : batch) {
+            inputs.add(pending.input);
+        }
+
+        try {
+            List<NeuralNetworkOutput<ActionType>> outputs = predictBatch(inputs);
+            if (outputs.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " predictions but got " + outputs.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(outputs.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (PendingPrediction<ActionType> pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stops the dispatcher. Predictions that have not been sent yet fail with an
+     * IllegalStateException.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+    }
+}
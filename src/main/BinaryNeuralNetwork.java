@@ -0,0 +1,180 @@
+package main;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link NeuralNetwork} whose predictions go over a persistent TCP or Unix domain socket in a
+ * binary format instead of JSON over HTTP. Training and model loading still use HTTP.
+ *
+ * Every message is a big-endian int32 byte length followed by that many bytes.
+ * <pre>
+ * request:  int32 count, then per input:  int32 currentPlayer, int32 rows, int32 cols, float32[rows * cols] board
+ * response: int32 count, then per output: float32 value, int32 policyLength, float32[policyLength] policy
+ * </pre>
+ * Requests and responses are strictly ordered on the connection, so calls are serialised; use
+ * {@link #predictBatch} to evaluate several positions per round trip.
+ */
+public class BinaryNeuralNetwork<ActionType> extends NeuralNetwork<ActionType> implements AutoCloseable {
+    private final SocketAddress address;
+    private SocketChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocateDirect(4);
+
+    public BinaryNeuralNetwork(SocketAddress address) {
+        this.address = address;
+    }
+
+    public static <ActionType> BinaryNeuralNetwork<ActionType> tcp(String host, int port) {
+        return new BinaryNeuralNetwork<>(new InetSocketAddress(host, port));
+    }
+
+    public static <ActionType> BinaryNeuralNetwork<ActionType> unixSocket(Path path) {
+        return new BinaryNeuralNetwork<>(UnixDomainSocketAddress.of(path));
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> predict(TrainingExample<ActionType> input) {
+        return predictBatch(List.of(input)).get(0);
+    }
+
+    @Override
+    public synchronized List<NeuralNetworkOutput<ActionType>> predictBatch(List<TrainingExample<ActionType>> inputs) {
+        try {
+            SocketChannel connection = connection();
+            writeRequest(connection, inputs);
+            List<NeuralNetworkOutput<ActionType>> outputs = readResponse(connection);
+            if (outputs.size() != inputs.size()) {
+                throw new IOException("Expected " + inputs.size() + " predictions but got " + outputs.size());
+            }
+            return outputs;
+        } catch (IOException e) {
+            // The stream position is unknown after a failure, so start over on a new connection
+            closeChannel();
+            throw new RuntimeException("Failed to make prediction request", e);
+        }
+    }
+
+    private SocketChannel connection() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = SocketChannel.open(address);
+            if (address instanceof InetSocketAddress) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+        }
+        return channel;
+    }
+
+    private void writeRequest(SocketChannel connection, List<TrainingExample<ActionType>> inputs) throws IOException {
+        int length = 4;
+        for (TrainingExample<ActionType> input : inputs) {
+            length += 12 + 4 * cellCount(input.board);
+        }
+        ensureCapacity(4 + length);
+
+        buffer.clear();
+        buffer.putInt(length);
+        buffer.putInt(inputs.size());
+        for (TrainingExample<ActionType> input : inputs) {
+            int rows = input.board.length;
+            int cols = rows == 0 ? 0 : input.board[0].length;
+            buffer.putInt(input.current_player);
+            buffer.putInt(rows);
+            buffer.putInt(cols);
+            for (int[] row : input.board) {
+                for (int cell : row) {
+                    buffer.putFloat(cell);
+                }
+            }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            connection.write(buffer);
+        }
+    }
+
+    private List<NeuralNetworkOutput<ActionType>> readResponse(SocketChannel connection) throws IOException {
+        lengthBuffer.clear();
+        readFully(connection, lengthBuffer);
+        int length = lengthBuffer.flip().getInt();
+        if (length < 4) {
+            throw new IOException("Invalid response length: " + length);
+        }
+        ensureCapacity(length);
+        buffer.clear().limit(length);
+        readFully(connection, buffer);
+        buffer.flip();
+
+        // Counts come from the server, so check them against the frame before allocating
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / 8) {
+            throw new IOException("Invalid prediction count: " + count);
+        }
+        List<NeuralNetworkOutput<ActionType>> outputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < 8) {
+                throw new IOException("Response ended before prediction " + i);
+            }
+            float value = buffer.getFloat();
+            int policyLength = buffer.getInt();
+            if (policyLength < 0 || policyLength > buffer.remaining() / 4) {
+                throw new IOException("Invalid policy length: " + policyLength);
+            }
+            float[] policy = new float[policyLength];
+            buffer.asFloatBuffer().get(policy);
+            buffer.position(buffer.position() + 4 * policyLength);
+            outputs.add(NeuralNetworkOutput.fromPolicyVector(policy, value));
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException(buffer.remaining() + " unread bytes at the end of the response");
+        }
+        return outputs;
+    }
+
+    private static int cellCount(int[][] board) {
+        int cells = 0;
+        for (int[] row : board) {
+            cells += row.length;
+        }
+        return cells;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(Math.max(bytes, 2 * buffer.capacity()));
+        }
+    }
+
+    private static void readFully(SocketChannel connection, ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (connection.read(target) < 0) {
+                throw new EOFException("Inference server closed the connection");
+            }
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do, the connection is being discarded
+            }
+            channel = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+}
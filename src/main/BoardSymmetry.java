@@ -0,0 +1,86 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A symmetry of a game, such as a rotation or reflection of the board, that maps a position and
+ * its policy to an equally valid position and policy. Used to multiply training examples: see
+ * {@link GameState#getSymmetries()}.
+ *
+ * The symmetry is two permutations: {@code cellMap[i]} is where board cell {@code i} (row-major,
+ * as in {@link GameState#convertBoard()}) moves to, and {@code actionMap[a]} is where policy entry
+ * {@code a} (in {@link GameState#getAllActions()} order) moves to.
+ */
+public final class BoardSymmetry {
+    private final int rows;
+    private final int cols;
+    private final int[] cellMap;
+    private final int[] actionMap;
+
+    public BoardSymmetry(int rows, int cols, int[] cellMap, int[] actionMap) {
+        if (cellMap.length != rows * cols) {
+            throw new IllegalArgumentException("cellMap has " + cellMap.length + " entries for a " + rows + "x" + cols + " board");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cellMap = cellMap.clone();
+        this.actionMap = actionMap.clone();
+    }
+
+    /**
+     * The 8 rotations and reflections of a square {@code size x size} board, identity first, for
+     * games whose actions are the board cells.
+     */
+    public static List<BoardSymmetry> dihedral(int size) {
+        List<BoardSymmetry> symmetries = new ArrayList<>(8);
+        for (int k = 0; k < 8; k++) {
+            int[] map = new int[size * size];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int r = row;
+                    int c = col;
+                    for (int turn = 0; turn < k % 4; turn++) {
+                        int rotated = c;
+                        c = size - 1 - r;
+                        r = rotated;
+                    }
+                    if (k >= 4) {
+                        c = size - 1 - c;
+                    }
+                    map[row * size + col] = r * size + c;
+                }
+            }
+            symmetries.add(new BoardSymmetry(size, size, map, map));
+        }
+        return symmetries;
+    }
+
+    public int[][] transformBoard(int[][] board) {
+        int[][] transformed = new int[rows][cols];
+        for (int i = 0; i < cellMap.length; i++) {
+            int target = cellMap[i];
+            transformed[target / cols][target % cols] = board[i / cols][i % cols];
+        }
+        return transformed;
+    }
+
+    public List<Double> transformPolicy(List<Double> policy) {
+        if (policy.size() != actionMap.length) {
+            throw new IllegalArgumentException("Policy has " + policy.size() + " entries, expected " + actionMap.length);
+        }
+        Double[] transformed = new Double[actionMap.length];
+        for (int a = 0; a < actionMap.length; a++) {
+            transformed[actionMap[a]] = policy.get(a);
+        }
+        return new ArrayList<>(List.of(transformed));
+    }
+
+    /**
+     * A new example with the board and policy transformed together; value and player are kept.
+     */
+    public <ActionType> TrainingExample<ActionType> apply(TrainingExample<ActionType> example) {
+        return new TrainingExample<>(transformBoard(example.board), transformPolicy(example.policy),
+                example.value, example.current_player);
+    }
+}
@@ -0,0 +1,36 @@
+package main;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Random rollout of at most {@code maxDepth} moves. A game that ends within the cap scores its
+ * real result; otherwise the position reached is scored by a static evaluator. This bounds the
+ * cost of a rollout in long games such as chess.
+ */
+public class CappedRolloutEvaluator<ActionType> implements Evaluator<ActionType> {
+    private final int maxDepth;
+    private final Evaluator<ActionType> staticEvaluator;
+
+    public CappedRolloutEvaluator(int maxDepth, Evaluator<ActionType> staticEvaluator) {
+        this.maxDepth = maxDepth;
+        this.staticEvaluator = staticEvaluator;
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> evaluate(GameState<ActionType> state) {
+        GameState<ActionType> currentState = state;
+        SplittableRandom random = RolloutEvaluator.random();
+        for (int depth = 0; depth < maxDepth && !currentState.isTerminal(); depth++) {
+            List<ActionType> actions = currentState.getLegalActions();
+            currentState = currentState.takeAction(actions.get(random.nextInt(actions.size())));
+        }
+
+        int player = state.getCurrentPlayer();
+        if (currentState.isTerminal()) {
+            return Evaluator.valueOnly(currentState.getReward(player));
+        }
+        double value = staticEvaluator.evaluate(currentState).valueHead;
+        return Evaluator.valueOnly(currentState.getCurrentPlayer() == player ? value : -value);
+    }
+}
@@ -0,0 +1,175 @@
+package main;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of neural network evaluations keyed by {@link GameState#positionKey()}, safe to
+ * share between the concurrent games of {@link MCTSAlpha#selfPlayGame}.
+ *
+ * Two eviction policies are available. LRU evicts the least recently used entry exactly but
+ * takes a lock on every lookup. CLOCK approximates LRU with one reference bit per slot: lookups
+ * are lock-free and only inserts are serialised, which suits a cache that is mostly hit.
+ */
+public class EvaluationCache<ActionType> {
+    public enum Eviction {
+        LRU,
+        CLOCK
+    }
+
+    private interface Store<ActionType> {
+        NeuralNetworkOutput<ActionType> get(long key);
+
+        void put(long key, NeuralNetworkOutput<ActionType> value);
+
+        int size();
+    }
+
+    private final Store<ActionType> store;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EvaluationCache(int capacity, Eviction eviction) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.store = eviction == Eviction.LRU ? new LruStore<>(capacity) : new ClockStore<>(capacity);
+    }
+
+    /**
+     * Cached evaluation of {@code state}, or null on a miss. Counts the hit or miss.
+     */
+    public NeuralNetworkOutput<ActionType> get(GameState<ActionType> state) {
+        NeuralNetworkOutput<ActionType> output = store.get(state.positionKey());
+        if (output == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return output;
+    }
+
+    public void put(GameState<ActionType> state, NeuralNetworkOutput<ActionType> output) {
+        store.put(state.positionKey(), output);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EvaluationCache(size=%d, hits=%d, misses=%d, hitRate=%.3f)",
+                size(), getHits(), getMisses(), getHitRate());
+    }
+
+    private static class LruStore<ActionType> implements Store<ActionType> {
+        private final Map<Long, NeuralNetworkOutput<ActionType>> map;
+
+        LruStore(int capacity) {
+            this.map = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, NeuralNetworkOutput<ActionType>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        @Override
+        public synchronized NeuralNetworkOutput<ActionType> get(long key) {
+            return map.get(key);
+        }
+
+        @Override
+        public synchronized void put(long key, NeuralNetworkOutput<ActionType> value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public synchronized int size() {
+            return map.size();
+        }
+    }
+
+    private static class ClockStore<ActionType> implements Store<ActionType> {
+        private static class Entry<ActionType> {
+            final long key;
+            final NeuralNetworkOutput<ActionType> value;
+            volatile boolean referenced;
+
+            Entry(long key, NeuralNetworkOutput<ActionType> value) {
+                this.key = key;
+                this.value = value;
+            }
+        }
+
+        private final ConcurrentHashMap<Long, Integer> slots = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<Entry<ActionType>> entries;
+        private int hand;
+
+        ClockStore(int capacity) {
+            this.entries = new AtomicReferenceArray<>(capacity);
+        }
+
+        @Override
+        public NeuralNetworkOutput<ActionType> get(long key) {
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                return null;
+            }
+            Entry<ActionType> entry = entries.get(slot);
+            // The slot may have been reused since it was looked up
+            if (entry == null || entry.key != key) {
+                return null;
+            }
+            entry.referenced = true;
+            return entry.value;
+        }
+
+        @Override
+        public synchronized void put(long key, NeuralNetworkOutput<ActionType> value) {
+            if (slots.containsKey(key)) {
+                return;
+            }
+            // Advance the hand, giving referenced entries a second chance
+            while (true) {
+                Entry<ActionType> entry = entries.get(hand);
+                if (entry == null || !entry.referenced) {
+                    break;
+                }
+                entry.referenced = false;
+                hand = (hand + 1) % entries.length();
+            }
+
+            Entry<ActionType> victim = entries.get(hand);
+            if (victim != null) {
+                slots.remove(victim.key);
+            }
+            entries.set(hand, new Entry<>(key, value));
+            slots.put(key, hand);
+            hand = (hand + 1) % entries.length();
+        }
+
+        @Override
+        public int size() {
+            return slots.size();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package main;
+
+/**
+ * Evaluates a leaf of the search tree.
+ *
+ * {@link NeuralNetworkOutput#valueHead} is the expected result in [-1, 1] for the player to move in
+ * the evaluated state. {@link NeuralNetworkOutput#policyHead} holds prior probabilities of its
+ * actions, or is null when the evaluator has no preference between them.
+ */
+public interface Evaluator<ActionType> {
+    NeuralNetworkOutput<ActionType> evaluate(GameState<ActionType> state);
+
+    static <ActionType> NeuralNetworkOutput<ActionType> valueOnly(double value) {
+        NeuralNetworkOutput<ActionType> output = new NeuralNetworkOutput<>();
+        output.valueHead = value;
+        return output;
+    }
+}
@@ -0,0 +1,245 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structure-of-arrays alternative to {@link Node} for large searches.
+ *
+ * Nodes are integer ids into parallel primitive arrays, and the children of a node are allocated
+ * together as one contiguous id range when it is expanded. Actions are stored as dense indices
+ * (see {@link GameState#actionIndex(Object)}) and game states are not stored at all: the search
+ * replays the actions from the root state on the way down. A node costs 28 bytes.
+ */
+public class FlatTree<ActionType extends Comparable> {
+    public static final int ROOT = 0;
+    public static final int BYTES_PER_NODE = 7 * 4;
+
+    private final GameState<ActionType> rootState;
+    private final int maxNodes;
+
+    private int[] parent;
+    private int[] firstChild;   // id of the first child, children are contiguous
+    private int[] childCount;   // 0 until expanded
+    private int[] action;       // dense index of the action leading to this node
+    private int[] visitCount;
+    private float[] totalValue;
+    private float[] prior;
+    private int size;
+
+    public FlatTree(GameState<ActionType> rootState, int maxNodes) {
+        this.rootState = rootState;
+        this.maxNodes = maxNodes;
+        allocate(Math.min(maxNodes, 1024));
+        size = 1;
+        parent[ROOT] = -1;
+        action[ROOT] = -1;
+    }
+
+    private void allocate(int capacity) {
+        parent = parent == null ? new int[capacity] : Arrays.copyOf(parent, capacity);
+        firstChild = firstChild == null ? new int[capacity] : Arrays.copyOf(firstChild, capacity);
+        childCount = childCount == null ? new int[capacity] : Arrays.copyOf(childCount, capacity);
+        action = action == null ? new int[capacity] : Arrays.copyOf(action, capacity);
+        visitCount = visitCount == null ? new int[capacity] : Arrays.copyOf(visitCount, capacity);
+        totalValue = totalValue == null ? new float[capacity] : Arrays.copyOf(totalValue, capacity);
+        prior = prior == null ? new float[capacity] : Arrays.copyOf(prior, capacity);
+    }
+
+    public GameState<ActionType> getRootState() {
+        return rootState;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCount[node];
+    }
+
+    public boolean isExpanded(int node) {
+        return childCount[node] > 0;
+    }
+
+    public int getVisitCount(int node) {
+        return visitCount[node];
+    }
+
+    public double getTotalValue(int node) {
+        return totalValue[node];
+    }
+
+    public double getPrior(int node) {
+        return prior[node];
+    }
+
+    public int getActionIndex(int node) {
+        return action[node];
+    }
+
+    /**
+     * The action leading from the parent of {@code node} to {@code node}.
+     */
+    public ActionType getAction(int node) {
+        return rootState.actionAt(action[node]);
+    }
+
+    /**
+     * Creates one child per legal action of {@code state}, the state of {@code node}.
+     *
+     * @param priors prior probability per action, or null for a uniform prior
+     * @return false if the state has no legal actions or the tree is full
+     */
+    public boolean expand(int node, GameState<ActionType> state, Map<ActionType, Double> priors) {
+        if (childCount[node] > 0) {
+            return true;
+        }
+        List<ActionType> legalActions = state.getLegalActions();
+        int count = legalActions.size();
+        if (count == 0 || size + count > maxNodes) {
+            return false;
+        }
+        if (size + count > parent.length) {
+            allocate((int) Math.min(maxNodes, Math.max(size + count, 2L * parent.length)));
+        }
+
+        int first = size;
+        for (int i = 0; i < count; i++) {
+            ActionType legalAction = legalActions.get(i);
+            int child = first + i;
+            parent[child] = node;
+            action[child] = state.actionIndex(legalAction);
+            prior[child] = priors == null ? 1.0f / count : priors.getOrDefault(legalAction, 0.0).floatValue();
+        }
+        size += count;
+        firstChild[node] = first;
+        childCount[node] = count;
+        return true;
+    }
+
+    /**
+     * Same scoring as {@link Node#selectChildUCT(double, boolean)}; unvisited children come first.
+     */
+    public int selectChildUCT(int node, double explorationWeight) {
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int best = -1;
+        double logParentVisits = Math.log(visitCount[node]);
+        int end = firstChild[node] + childCount[node];
+
+        for (int child = firstChild[node]; child < end; child++) {
+            int visits = visitCount[child];
+            if (visits == 0) {
+                return child;
+            }
+            double exploitation = totalValue[child] / visits;
+            double exploration = explorationWeight * Math.sqrt(logParentVisits / visits);
+            double score = (exploitation + 1.0) / 2.0 + exploration;
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Same scoring as {@link Node#selectChildPUCT(double)}; unvisited children come first.
+     */
+    public int selectChildPUCT(int node, double c_puct) {
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int best = -1;
+        double sqrtLogParentVisits = Math.sqrt(Math.log(visitCount[node] + 1));
+        int end = firstChild[node] + childCount[node];
+
+        for (int child = firstChild[node]; child < end; child++) {
+            int visits = visitCount[child];
+            if (visits == 0) {
+                return child;
+            }
+            double qValue = totalValue[child] / visits;
+            double uValue = c_puct * prior[child] * sqrtLogParentVisits / (1 + visits);
+            double score = qValue + uValue;
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    public void backpropagate(int node, double reward) {
+        while (node != -1) {
+            visitCount[node] += 1;
+            totalValue[node] += (float) reward;
+
+            // Invert reward for parent's perspective
+            reward = -reward;
+            node = parent[node];
+        }
+    }
+
+    /**
+     * Child of {@code node} with the most visits, ties broken by average value; -1 if unexpanded.
+     */
+    public int getBestChild(int node) {
+        int best = -1;
+        int maxVisits = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int end = firstChild[node] + childCount[node];
+        for (int child = firstChild[node]; child < end; child++) {
+            int visits = visitCount[child];
+            double avgValue = visits > 0 ? totalValue[child] / visits : Double.NEGATIVE_INFINITY;
+            if (visits > maxVisits || (visits == maxVisits && avgValue > bestValue)) {
+                maxVisits = visits;
+                best = child;
+                bestValue = avgValue;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Visit distribution over all actions of the root state, in dense index order, matching
+     * {@link Node#getVisitDistributionSorted(double)}.
+     */
+    public List<Double> getVisitDistribution(int node, double temperature) {
+        int actionCount = rootState.getAllActions().size();
+        double[] distribution = new double[actionCount];
+        double sum = 0.0;
+        int end = firstChild[node] + childCount[node];
+        for (int child = firstChild[node]; child < end; child++) {
+            if (visitCount[child] > 0) {
+                double temperedVisits = Math.pow(visitCount[child], 1.0 / temperature);
+                distribution[action[child]] = temperedVisits;
+                sum += temperedVisits;
+            }
+        }
+
+        List<Double> result = new ArrayList<>(actionCount);
+        for (int i = 0; i < actionCount; i++) {
+            result.add(0.0);
+        }
+        if (sum > 0) {
+            for (int i = 0; i < actionCount; i++) {
+                result.set(i, distribution[i] / sum);
+            }
+        } else if (childCount[node] > 0) {
+            // If no visits, return uniform distribution over legal actions
+            for (int child = firstChild[node]; child < end; child++) {
+                result.set(action[child], 1.0 / childCount[node]);
+            }
+        }
+        return result;
+    }
+}
@@ -18,4 +18,44 @@ public interface GameState<ActionType> {
      * For example: "Current player: X (Player 0)" or "Current player: White (Player 0)"
      */
     void printCurrentPlayer();
+
+    /**
+     * Dense index of an action: its position in {@link #getAllActions()}, which is also the
+     * order of policy vectors. Games with a cheap encoding should override this.
+     */
+    default int actionIndex(ActionType action) {
+        return getAllActions().indexOf(action);
+    }
+
+    /**
+     * Inverse of {@link #actionIndex(Object)}.
+     */
+    default ActionType actionAt(int index) {
+        return getAllActions().get(index);
+    }
+
+    /**
+     * 64-bit key identifying this position, including the player to move, for caches of
+     * evaluations. The default only has the 32 bits of hashCode(), so games should override it
+     * with an exact encoding or a strong hash.
+     */
+    default long positionKey() {
+        return hashCode();
+    }
+
+    /**
+     * Symmetries of this position other than the identity, used to turn one searched position
+     * into several training examples. Games without symmetries keep the empty default.
+     */
+    default List<BoardSymmetry> getSymmetries() {
+        return List.of();
+    }
+
+    /**
+     * A new {@link PlayoutBoard} for fast random playouts, or null if the game has none and
+     * playouts go through {@link #takeAction}.
+     */
+    default PlayoutBoard newPlayoutBoard() {
+        return null;
+    }
 }
@@ -0,0 +1,380 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Policy/value network evaluated inside the JVM, for games small enough that a request to the
+ * Python server costs far more than the model itself.
+ *
+ * The network is a trunk of dense and same-padded 2D convolution layers followed by a policy head
+ * and a value head, both reading the trunk output. The input has shape [channels][height][width]:
+ * plane 0 is {@link TrainingExample#board} and any further planes are filled with
+ * {@link TrainingExample#current_player}.
+ *
+ * Weights are loaded from the format written by {@link #save(Path)}, all values big-endian:
+ * <pre>
+ * int32 magic "RNN1", int32 channels, int32 height, int32 width
+ * int32 count, layers   (trunk, then the same for the policy head and the value head)
+ * layer: int32 kind (0 dense, 1 conv), int32 activation (0 linear, 1 relu, 2 tanh, 3 softmax)
+ *   dense: int32 in, int32 out, float32[out][in] weights, float32[out] bias
+ *   conv:  int32 inChannels, int32 outChannels, int32 kernel, float32[out][in][kernel][kernel] weights, float32[out] bias
+ * </pre>
+ * Predictions are thread-safe; each thread keeps its own activation buffers.
+ */
+public class LocalNeuralNetwork<ActionType> implements Predictor<ActionType> {
+    private static final int MAGIC = 0x524E4E31;
+
+    public static final int LINEAR = 0;
+    public static final int RELU = 1;
+    public static final int TANH = 2;
+    public static final int SOFTMAX = 3;
+
+    private final int channels;
+    private final int height;
+    private final int width;
+    private final List<Layer> trunk;
+    private final List<Layer> policyHead;
+    private final List<Layer> valueHead;
+    private final ThreadLocal<Scratch> scratch;
+
+    public LocalNeuralNetwork(int channels, int height, int width,
+                              List<Layer> trunk, List<Layer> policyHead, List<Layer> valueHead) {
+        this.channels = channels;
+        this.height = height;
+        this.width = width;
+        this.trunk = trunk;
+        this.policyHead = policyHead;
+        this.valueHead = valueHead;
+
+        int trunkSize = checkShapes(trunk, channels * height * width, "trunk");
+        checkShapes(policyHead, trunkSize, "policy head");
+        if (checkShapes(valueHead, trunkSize, "value head") != 1) {
+            throw new IllegalArgumentException("Value head must have a single output");
+        }
+
+        int maxSize = channels * height * width;
+        int maxPatch = 0;
+        for (List<Layer> layers : List.of(trunk, policyHead, valueHead)) {
+            for (Layer layer : layers) {
+                maxSize = Math.max(maxSize, layer.outputSize);
+                maxPatch = Math.max(maxPatch, layer.patchSize());
+            }
+        }
+        int bufferSize = maxSize;
+        int patchBufferSize = maxPatch;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(bufferSize, patchBufferSize));
+    }
+
+    private int checkShapes(List<Layer> layers, int inputSize, String name) {
+        int size = inputSize;
+        for (Layer layer : layers) {
+            if (layer.inputSize != size) {
+                throw new IllegalArgumentException(String.format(
+                        "%s layer expects %d inputs but receives %d", name, layer.inputSize, size));
+            }
+            size = layer.outputSize;
+        }
+        return size;
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> predict(TrainingExample<ActionType> input) {
+        Scratch s = scratch.get();
+        float[] features = s.features;
+        int plane = height * width;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                features[row * width + col] = input.board[row][col];
+            }
+        }
+        Arrays.fill(features, plane, channels * plane, input.current_player);
+
+        int featureSize = channels * plane;
+        if (!trunk.isEmpty()) {
+            float[] trunkOutput = forward(trunk, features, s);
+            featureSize = trunk.get(trunk.size() - 1).outputSize;
+            System.arraycopy(trunkOutput, 0, features, 0, featureSize);
+        }
+
+        float value = valueHead.isEmpty() ? features[0] : forward(valueHead, features, s)[0];
+        float[] policyOutput = policyHead.isEmpty() ? features : forward(policyHead, features, s);
+        int policySize = policyHead.isEmpty() ? featureSize : policyHead.get(policyHead.size() - 1).outputSize;
+
+        return NeuralNetworkOutput.fromPolicyVector(Arrays.copyOf(policyOutput, policySize), value);
+    }
+
+    /**
+     * Runs {@code layers} on {@code input}, alternating between the two scratch buffers, and returns
+     * the buffer holding the output. The input itself is not modified.
+     */
+    private float[] forward(List<Layer> layers, float[] input, Scratch s) {
+        float[] in = input;
+        for (Layer layer : layers) {
+            float[] out = in == s.a ? s.b : s.a;
+            layer.forward(in, out, s.patches);
+            in = out;
+        }
+        return in;
+    }
+
+    public static <ActionType> LocalNeuralNetwork<ActionType> load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a network weights file: " + path);
+            }
+            int channels = in.readInt();
+            int height = in.readInt();
+            int width = in.readInt();
+            List<Layer> trunk = readLayers(in, height, width);
+            List<Layer> policyHead = readLayers(in, height, width);
+            List<Layer> valueHead = readLayers(in, height, width);
+            return new LocalNeuralNetwork<>(channels, height, width, trunk, policyHead, valueHead);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(channels);
+            out.writeInt(height);
+            out.writeInt(width);
+            for (List<Layer> layers : List.of(trunk, policyHead, valueHead)) {
+                out.writeInt(layers.size());
+                for (Layer layer : layers) {
+                    layer.write(out);
+                }
+            }
+        }
+    }
+
+    private static List<Layer> readLayers(DataInputStream in, int height, int width) throws IOException {
+        int count = in.readInt();
+        List<Layer> layers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = in.readInt();
+            int activation = in.readInt();
+            if (kind == 0) {
+                int inputs = in.readInt();
+                int outputs = in.readInt();
+                layers.add(new DenseLayer(inputs, outputs, readFloats(in, outputs * inputs),
+                        readFloats(in, outputs), activation));
+            } else if (kind == 1) {
+                int inChannels = in.readInt();
+                int outChannels = in.readInt();
+                int kernel = in.readInt();
+                layers.add(new ConvLayer(inChannels, outChannels, kernel, height, width,
+                        readFloats(in, outChannels * inChannels * kernel * kernel),
+                        readFloats(in, outChannels), activation));
+            } else {
+                throw new IOException("Unknown layer kind: " + kind);
+            }
+        }
+        return layers;
+    }
+
+    private static float[] readFloats(DataInputStream in, int count) throws IOException {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    private static class Scratch {
+        final float[] features;
+        final float[] a;
+        final float[] b;
+        final float[] patches;
+
+        Scratch(int size, int patchSize) {
+            features = new float[size];
+            a = new float[size];
+            b = new float[size];
+            patches = new float[patchSize];
+        }
+    }
+
+    public abstract static class Layer {
+        final int inputSize;
+        final int outputSize;
+        final float[] weights;
+        final float[] bias;
+        final int activation;
+
+        Layer(int inputSize, int outputSize, float[] weights, float[] bias, int activation) {
+            if (activation < LINEAR || activation > SOFTMAX) {
+                throw new IllegalArgumentException("Unknown activation: " + activation);
+            }
+            this.inputSize = inputSize;
+            this.outputSize = outputSize;
+            this.weights = weights;
+            this.bias = bias;
+            this.activation = activation;
+        }
+
+        abstract void forward(float[] in, float[] out, float[] patches);
+
+        abstract void write(DataOutputStream out) throws IOException;
+
+        int patchSize() {
+            return 0;
+        }
+
+        void activate(float[] out) {
+            switch (activation) {
+                case RELU:
+                    for (int i = 0; i < outputSize; i++) {
+                        out[i] = Math.max(0.0f, out[i]);
+                    }
+                    break;
+                case TANH:
+                    for (int i = 0; i < outputSize; i++) {
+                        out[i] = (float) Math.tanh(out[i]);
+                    }
+                    break;
+                case SOFTMAX:
+                    float max = Float.NEGATIVE_INFINITY;
+                    for (int i = 0; i < outputSize; i++) {
+                        max = Math.max(max, out[i]);
+                    }
+                    float sum = 0.0f;
+                    for (int i = 0; i < outputSize; i++) {
+                        out[i] = (float) Math.exp(out[i] - max);
+                        sum += out[i];
+                    }
+                    for (int i = 0; i < outputSize; i++) {
+                        out[i] /= sum;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void writeParameters(DataOutputStream out) throws IOException {
+            for (float w : weights) {
+                out.writeFloat(w);
+            }
+            for (float b : bias) {
+                out.writeFloat(b);
+            }
+        }
+    }
+
+    public static class DenseLayer extends Layer {
+        /**
+         * @param weights row-major [outputs][inputs]
+         */
+        public DenseLayer(int inputs, int outputs, float[] weights, float[] bias, int activation) {
+            super(inputs, outputs, weights, bias, activation);
+            if (weights.length != outputs * inputs || bias.length != outputs) {
+                throw new IllegalArgumentException("Dense layer parameters do not match " + inputs + "x" + outputs);
+            }
+        }
+
+        @Override
+        void forward(float[] in, float[] out, float[] patches) {
+            VectorOps ops = VectorOps.INSTANCE;
+            for (int o = 0; o < outputSize; o++) {
+                out[o] = bias[o] + ops.dot(weights, o * inputSize, in, 0, inputSize);
+            }
+            activate(out);
+        }
+
+        @Override
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(0);
+            out.writeInt(activation);
+            out.writeInt(inputSize);
+            out.writeInt(outputSize);
+            writeParameters(out);
+        }
+    }
+
+    /**
+     * 2D convolution with stride 1 and zero padding that keeps the height and width. Each output
+     * position is one dot product against an unrolled input patch (im2col).
+     */
+    public static class ConvLayer extends Layer {
+        private final int inChannels;
+        private final int outChannels;
+        private final int kernel;
+        private final int height;
+        private final int width;
+
+        /**
+         * @param weights [outChannels][inChannels][kernel][kernel]
+         */
+        public ConvLayer(int inChannels, int outChannels, int kernel, int height, int width,
+                         float[] weights, float[] bias, int activation) {
+            super(inChannels * height * width, outChannels * height * width, weights, bias, activation);
+            if (kernel % 2 == 0) {
+                throw new IllegalArgumentException("Kernel size must be odd: " + kernel);
+            }
+            if (weights.length != outChannels * inChannels * kernel * kernel || bias.length != outChannels) {
+                throw new IllegalArgumentException("Convolution parameters do not match its shape");
+            }
+            this.inChannels = inChannels;
+            this.outChannels = outChannels;
+            this.kernel = kernel;
+            this.height = height;
+            this.width = width;
+        }
+
+        @Override
+        int patchSize() {
+            return height * width * inChannels * kernel * kernel;
+        }
+
+        @Override
+        void forward(float[] in, float[] out, float[] patches) {
+            int half = kernel / 2;
+            int patch = inChannels * kernel * kernel;
+
+            // Unroll the receptive field of every output position into one row of patches
+            int p = 0;
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    for (int c = 0; c < inChannels; c++) {
+                        for (int kr = 0; kr < kernel; kr++) {
+                            int r = row + kr - half;
+                            for (int kc = 0; kc < kernel; kc++) {
+                                int cc = col + kc - half;
+                                boolean inside = r >= 0 && r < height && cc >= 0 && cc < width;
+                                patches[p++] = inside ? in[(c * height + r) * width + cc] : 0.0f;
+                            }
+                        }
+                    }
+                }
+            }
+
+            VectorOps ops = VectorOps.INSTANCE;
+            int positions = height * width;
+            for (int o = 0; o < outChannels; o++) {
+                for (int pos = 0; pos < positions; pos++) {
+                    out[o * positions + pos] = bias[o] + ops.dot(weights, o * patch, patches, pos * patch, patch);
+                }
+            }
+            activate(out);
+        }
+
+        @Override
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(1);
+            out.writeInt(activation);
+            out.writeInt(inChannels);
+            out.writeInt(outChannels);
+            out.writeInt(kernel);
+            writeParameters(out);
+        }
+    }
+}
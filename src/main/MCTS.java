@@ -1,48 +1,389 @@
 package main;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 public class MCTS<ActionType extends Comparable> {
+    // Visits (each counted as a loss) added to every node on a path while a thread is searching it,
+    // steering the other threads of a parallel search towards different paths
+    static final int VIRTUAL_LOSS = 3;
+
     private final double explorationWeight;
+    private final Evaluator<ActionType> evaluator;
+    private int transpositionTableSize = 0;  // 0 searches a tree without transpositions
 
     public MCTS() {
         this(Math.sqrt(2));
     }
 
     public MCTS(double explorationWeight) {
+        this(explorationWeight, new RolloutEvaluator<>());
+    }
+
+    /**
+     * @param evaluator scores each newly expanded leaf; only its value is used, since UCT
+     *                  selection has no priors
+     */
+    public MCTS(double explorationWeight, Evaluator<ActionType> evaluator) {
         this.explorationWeight = explorationWeight;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Shares one node between all move orders that reach the same position, using a
+     * {@link TranspositionTable} of at most {@code entries} positions created for each search.
+     * Pass 0 to search a plain tree.
+     */
+    public void setTranspositionTableSize(int entries) {
+        this.transpositionTableSize = entries;
+    }
+
+    TranspositionTable<ActionType> newTranspositionTable() {
+        return transpositionTableSize > 0 ? new TranspositionTable<>(transpositionTableSize) : null;
     }
 
     public Node<ActionType> run(GameState<ActionType> initialState, int iterations) {
-        Node<ActionType> root = new Node<>(initialState, null);
+        return run(initialState, SearchLimits.iterations(iterations));
+    }
 
-        for (int i = 0; i < iterations; i++) {
+    /**
+     * Searches until {@code limits} are reached, for example a wall-clock budget in milliseconds.
+     */
+    public Node<ActionType> run(GameState<ActionType> initialState, SearchLimits limits) {
+        return run(initialState, limits, SearchConfig.sequential());
+    }
+
+    private void searchSequential(Node<ActionType> root, TranspositionTable<ActionType> table, SearchBudget budget) {
+        List<Node<ActionType>> path = new ArrayList<>();
+
+        for (int i = 0; !budget.shouldStop(root); i++) {
             if(root.fullyExplored) {
                 System.out.println("Exploration done after " + i + " iterations");
                 break;
             }
 
-            eachStep(initialState, root);
+            eachStep(root.state, root, table, path);
+        }
+    }
+
+
+    /**
+     * Runs {@code iterations} search iterations spread over threads as described by
+     * {@code config}. In ROOT mode the returned node holds the merged root statistics only; in
+     * LEAF mode every iteration evaluates its leaf with {@code config.threads} playouts.
+     */
+    public Node<ActionType> run(GameState<ActionType> initialState, int iterations, SearchConfig config) {
+        return run(initialState, SearchLimits.iterations(iterations), config);
+    }
+
+    public Node<ActionType> run(GameState<ActionType> initialState, SearchLimits limits, SearchConfig config) {
+        if (config.mode == SearchConfig.Mode.ROOT) {
+            return runRootParallel(initialState, limits, config.threads);
         }
+        Node<ActionType> root = new Node<>(initialState, null, config.mode == SearchConfig.Mode.TREE);
+        search(root, newTranspositionTable(), new SearchBudget(limits), config);
+        return root;
+    }
+
+    /**
+     * Searches under an existing root until {@code budget} runs out, keeping its statistics.
+     * ROOT mode builds separate trees, so it cannot continue a search.
+     */
+    void search(Node<ActionType> root, TranspositionTable<ActionType> table, SearchBudget budget, SearchConfig config) {
+        switch (config.mode) {
+            case TREE:
+                // The budget counts the iterations, so the pool itself is unbounded
+                runConcurrently(config.threads, Integer.MAX_VALUE, () -> root.fullyExplored || budget.shouldStop(root),
+                        () -> eachStepParallel(root.state, root, table, config.virtualLoss));
+                break;
+            case LEAF:
+                searchLeafParallel(root, table, budget, config.threads);
+                break;
+            case SEQUENTIAL:
+                searchSequential(root, table, budget);
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot continue a " + config.mode + " search");
+        }
+    }
+
+    /**
+     * Tree-parallel search: {@code threads} workers descend the same tree, using virtual loss so
+     * that concurrent descents spread out, and update node statistics atomically.
+     */
+    public Node<ActionType> runParallel(GameState<ActionType> initialState, int iterations, int threads) {
+        return runTreeParallel(initialState, iterations, threads, VIRTUAL_LOSS);
+    }
 
+    private Node<ActionType> runTreeParallel(GameState<ActionType> initialState, int iterations,
+                                             int threads, int virtualLoss) {
+        Node<ActionType> root = new Node<>(initialState, null, true);
+        search(root, newTranspositionTable(), new SearchBudget(SearchLimits.iterations(iterations)),
+                new SearchConfig(SearchConfig.Mode.TREE, threads, virtualLoss));
         return root;
     }
 
+    /**
+     * Root-parallel search: {@code threads} independent trees share the iterations, then their root
+     * children are merged into a new root by summing visit counts and values. There is no shared
+     * state during the search, so this scales without contention; each tree has its own
+     * transposition table.
+     */
+    private Node<ActionType> runRootParallel(GameState<ActionType> initialState, SearchLimits limits, int threads) {
+        int iterations = limits.maxIterations;
+        List<Callable<Node<ActionType>>> searches = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int share = iterations == SearchLimits.NO_ITERATION_LIMIT ? iterations
+                    : iterations / threads + (t < iterations % threads ? 1 : 0);
+            // Every tree gets the full time budget; early stopping needs the merged counts, so it is off
+            SearchLimits treeLimits = new SearchLimits(share, limits.maxMillis, false, limits.checkInterval);
+            searches.add(() -> run(initialState, treeLimits));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            return mergeRoots(initialState, invokeAll(executor, searches));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sums the statistics of the root children of several trees searched from the same state.
+     * The merged children have no children of their own.
+     */
+    Node<ActionType> mergeRoots(GameState<ActionType> initialState, List<Node<ActionType>> roots) {
+        Node<ActionType> merged = new Node<>(initialState, null);
+        for (Node<ActionType> root : roots) {
+            merged.visitCount += root.visitCount;
+            merged.totalValue += root.totalValue;
+            for (Map.Entry<ActionType, Node<ActionType>> entry : root.children.entrySet()) {
+                Node<ActionType> child = entry.getValue();
+                Node<ActionType> mergedChild = merged.children.computeIfAbsent(entry.getKey(),
+                        action -> new Node<>(child.state, merged));
+                mergedChild.visitCount += child.visitCount;
+                mergedChild.totalValue += child.totalValue;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Leaf-parallel search: a single tree searched by one thread, where each expanded leaf is
+     * evaluated by {@code playouts} random playouts run in parallel.
+     */
+    private void searchLeafParallel(Node<ActionType> root, TranspositionTable<ActionType> table,
+                                    SearchBudget budget, int playouts) {
+        List<Node<ActionType>> path = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(playouts);
+        try {
+            while (!root.fullyExplored && !budget.shouldStop(root)) {
+                eachStepLeafParallel(root.state, root, table, path, executor, playouts);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void eachStepLeafParallel(GameState<ActionType> initialState, Node<ActionType> root,
+                                      TranspositionTable<ActionType> table, List<Node<ActionType>> path,
+                                      ExecutorService executor, int playouts) {
+        Node<ActionType> node = selectAndExpand(root, table, path);
+        if (node == null) {
+            return;
+        }
+        if (node != path.get(path.size() - 1)) {
+            // Back at a position already on the path
+            backpropagate(path, 0.0, playouts);
+            return;
+        }
+
+        GameState<ActionType> leafState = node.state;
+        List<Callable<Double>> simulations = new ArrayList<>();
+        for (int p = 0; p < playouts; p++) {
+            simulations.add(() -> simulate(initialState, leafState));
+        }
+        double totalReward = 0.0;
+        for (double reward : invokeAll(executor, simulations)) {
+            totalReward += reward;
+        }
+
+        backpropagate(path, totalReward, playouts);
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Runs {@code step} {@code iterations} times in total across {@code threads} worker threads,
+     * stopping early once {@code done} returns true. Failures in a worker are rethrown.
+     */
+    static void runConcurrently(int threads, int iterations, BooleanSupplier done, Runnable step) {
+        AtomicInteger remaining = new AtomicInteger(iterations);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                while (!done.getAsBoolean() && remaining.getAndDecrement() > 0) {
+                    step.run();
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One iteration of {@link #eachStep(GameState, Node)} that is safe to run concurrently on the
+     * same tree.
+     */
+    void eachStepParallel(GameState<ActionType> initialState, Node<ActionType> root,
+                          TranspositionTable<ActionType> table, int virtualLoss) {
+        List<Node<ActionType>> path = new ArrayList<>();
+        Node<ActionType> node = root;
+        node.addStatistics(virtualLoss, -virtualLoss);
+        path.add(node);
+
+        // Selection and expansion; an expansion lost to another thread goes back to selection
+        while (true) {
+            while (!node.state.isTerminal() && !node.isFullyExplored() && node.isFullyExpanded()) {
+                ActionType action = node.selectChildUCT(explorationWeight, false);
+                if (action == null) {
+                    // Every child was marked fully explored by another thread
+                    revertVirtualLoss(path, virtualLoss);
+                    return;
+                }
+                node = node.children.get(action);
+                if (closesCycle(node, table, path)) {
+                    backpropagateReplacingVirtualLoss(path, 0.0, virtualLoss);
+                    return;
+                }
+                node.addStatistics(virtualLoss, -virtualLoss);
+                path.add(node);
+            }
+            if (node.isFullyExplored()) {
+                revertVirtualLoss(path, virtualLoss);
+                return;
+            }
+            if (node.state.isTerminal()) {
+                break;
+            }
+
+            Node<ActionType> child = node.expand(table);
+            if (child == null) {
+                // Another thread expanded the last untried action, so the node is fully expanded now
+                continue;
+            }
+            if (closesCycle(child, table, path)) {
+                backpropagateReplacingVirtualLoss(path, 0.0, virtualLoss);
+                return;
+            }
+            node = child;
+            node.addStatistics(virtualLoss, -virtualLoss);
+            path.add(node);
+            break;
+        }
+
+        // Simulation
+        double reward = simulate(initialState, node.state);
+
+        backpropagateReplacingVirtualLoss(path, reward, virtualLoss);
+    }
+
+    private void backpropagateReplacingVirtualLoss(List<Node<ActionType>> path, double reward, int virtualLoss) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).addStatistics(1 - virtualLoss, reward + virtualLoss);
+            reward = -reward;
+        }
+    }
+
+    private void revertVirtualLoss(List<Node<ActionType>> path, int virtualLoss) {
+        for (Node<ActionType> node : path) {
+            node.addStatistics(-virtualLoss, virtualLoss);
+        }
+    }
+
+    /**
+     * True if {@code node} is already on the search path, which only happens when a transposition
+     * table links a position back to an earlier one, as a chess repetition does. The iteration
+     * then ends with a draw.
+     */
+    private static <ActionType extends Comparable> boolean closesCycle(Node<ActionType> node,
+                                                                       TranspositionTable<ActionType> table,
+                                                                       List<Node<ActionType>> path) {
+        return table != null && path.contains(node);
+    }
 
     public void eachStep(GameState<ActionType> initialState, Node<ActionType> node) {
+        eachStep(initialState, node, null, new ArrayList<>());
+    }
+
+    /**
+     * One search iteration from {@code root}, sharing nodes through {@code table} if it is not
+     * null. {@code path} is scratch space for the nodes visited.
+     */
+    private void eachStep(GameState<ActionType> initialState, Node<ActionType> root,
+                          TranspositionTable<ActionType> table, List<Node<ActionType>> path) {
+        Node<ActionType> node = selectAndExpand(root, table, path);
+        if (node == null) {
+            return;
+        }
+        if (node != path.get(path.size() - 1)) {
+            // Back at a position already on the path
+            backpropagate(path, 0.0);
+            return;
+        }
+
+        // Simulation
+        double reward = simulate(initialState, node.state);
+
+        backpropagate(path, reward);
+    }
+    /**
+     * Selection and expansion of one iteration: returns the node to simulate from, or null if
+     * the search ran into a fully explored node. {@code path} is cleared and filled with the nodes
+     * visited, root first. A node that closes a cycle is returned without being added to the path.
+     */
+    private Node<ActionType> selectAndExpand(Node<ActionType> node, TranspositionTable<ActionType> table,
+                                             List<Node<ActionType>> path) {
+        // Node caches its legal actions, so this does not regenerate moves on every step
+        boolean print = node.getActions().length <= 3;
+        path.clear();
+        path.add(node);
+
         // Selection
         while (!node.state.isTerminal()) {
             if(node.isFullyExplored()){
-                return;
+                return null;
             }
             if (node.isFullyExpanded()) {
-                ActionType action = null;
-
-                if(initialState.getLegalActions().size() <=3) {
-                    action = node.selectChildUCT(explorationWeight, true);
-                } else {
-                    action = node.selectChildUCT(explorationWeight, false);
-                }
+                ActionType action = node.selectChildUCT(explorationWeight, print);
 
                 // Safeguard against null action
                 if (action == null) {
@@ -56,6 +397,10 @@ public class MCTS<ActionType extends Comparable> {
                 }
 
                 node = child;
+                if (closesCycle(node, table, path)) {
+                    return node;
+                }
+                path.add(node);
             } else {
                 // If not fully expanded, break to expansion phase
                 break;
@@ -64,71 +409,91 @@ public class MCTS<ActionType extends Comparable> {
 
         // Expansion
         if (!node.state.isTerminal()) {
-            node = node.expand();
-            if (node == null) {
-                return;
+            node = node.expand(table);
+            if (node != null && !closesCycle(node, table, path)) {
+                path.add(node);
             }
         }
+        return node;
+    }
 
-        // Simulation
-        double reward = simulate(initialState, node.state);
-
-        backpropagate(node, reward);
+    /**
+     * Same search as {@link #run(GameState, int)} on a {@link FlatTree}, for trees too large to
+     * hold as {@link Node} objects. Expansion stops once {@code maxNodes} is reached.
+     */
+    public FlatTree<ActionType> runFlat(GameState<ActionType> initialState, int iterations, int maxNodes) {
+        FlatTree<ActionType> tree = new FlatTree<>(initialState, maxNodes);
+        for (int i = 0; i < iterations; i++) {
+            eachStep(tree);
+        }
+        return tree;
     }
 
-    double simulate(GameState<ActionType> initialState, GameState<ActionType> state) {
-        GameState<ActionType> currentState = state;
-        Random random = new Random();
-        int depth = 0;
+    public void eachStep(FlatTree<ActionType> tree) {
+        int node = FlatTree.ROOT;
+        GameState<ActionType> state = tree.getRootState();
 
-        int maxDepth = Math.max(state.getMaximumPlays(), 1);
+        // Selection: states are not stored, so replay the actions on the way down
+        while (tree.isExpanded(node) && !state.isTerminal()) {
+            node = tree.selectChildUCT(node, explorationWeight);
+            state = state.takeAction(tree.getAction(node));
+        }
 
-        while (!currentState.isTerminal()) {
-            List<ActionType> actions = currentState.getLegalActions();
-            // Otherwise choose random move
-            currentState = currentState.takeAction(actions.get(random.nextInt(actions.size())));
-            depth++;
+        // Expansion: all children are created at once and the first one is simulated
+        if (!state.isTerminal() && tree.expand(node, state, null)) {
+            node = tree.selectChildUCT(node, explorationWeight);
+            state = state.takeAction(tree.getAction(node));
         }
 
-        double baseReward = currentState.getReward(1 - state.getCurrentPlayer());
-        if(initialState.getLegalActions().size() <=5) {
-           // System.out.println("Base reward: " + baseReward);
-           // currentState.printWinner();
-           // System.out.println("node current state: \n" + currentState + "\n\n");
+        // Simulation
+        double reward = simulate(tree.getRootState(), state);
+
+        tree.backpropagate(node, reward);
+    }
+
+    public ActionType getBestAction(FlatTree<ActionType> tree) {
+        int best = tree.getBestChild(FlatTree.ROOT);
+        if (best == -1) {
+            return null;
         }
-        //return baseReward;
-        return calculateReward(baseReward, depth, maxDepth);
+        ActionType bestAction = tree.getAction(best);
+        System.out.println(String.format("\nSelected move %s:", bestAction));
+        System.out.println(String.format("Visit count: %d", tree.getVisitCount(best)));
+        System.out.println(String.format("Total value: %.3f", tree.getTotalValue(best)));
+        System.out.println(String.format("Average value: %.3f", tree.getTotalValue(best) / tree.getVisitCount(best)));
+        return bestAction;
     }
 
-    public double calculateReward(double baseReward, int depth, int maxDepth) {
-        // Normalize depth between 0 (fastest) and 1 (slowest)
-        double normalizedDepth = Math.min(1.0, Math.max(0.0, depth / (double) maxDepth));
+    /**
+     * Reward of {@code state} for the player who moved into it.
+     */
+    double simulate(GameState<ActionType> initialState, GameState<ActionType> state) {
+        // The evaluator scores the state for the player to move
+        return -evaluator.evaluate(state).valueHead;
+    }
 
-        // Win: Exponential decay from 1.0 to 0.2
-        if (baseReward == 1.0) {
-            return 0.8 * Math.exp(-1.6 * normalizedDepth) + 0.2;
-        }
-        // Draw: Neutral value
-        else if (baseReward == 0.0) {
-            return 0.0;
-        }
-        // Loss: Linear penalty from -1.0 to -0.2
-        else {
-            return -1.0 + 0.8 * normalizedDepth;
-        }
+    public double calculateReward(double baseReward, int depth, int maxDepth) {
+        return RolloutEvaluator.shapeReward(baseReward, depth, maxDepth);
     }
 
 
-    private void backpropagate(Node<ActionType> node, double reward) {
-        while (node != null) {
-            node.visitCount += 1;
+    private void backpropagate(List<Node<ActionType>> path, double reward) {
+        backpropagate(path, reward, 1);
+    }
+
+    /**
+     * Adds {@code visits} visits with a combined value of {@code reward} to the nodes of
+     * {@code path}, from the leaf back to the root. The path rather than parent links is followed,
+     * since a node shared through a transposition table has only one parent.
+     */
+    private void backpropagate(List<Node<ActionType>> path, double reward, int visits) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<ActionType> node = path.get(i);
+            node.visitCount += visits;
             node.totalValue += reward;
 
             // Invert reward for parent's perspective
             reward = -reward; // Flip sign for opponent's perspective
-
-            // Move to parent node
-            node = node.parent;
         }
     }
 
@@ -178,9 +543,26 @@ public class MCTS<ActionType extends Comparable> {
             System.out.println("\n=================");
         }
 
-        // Select action with highest visit count
+        ActionType bestAction = mostVisitedAction(rootNode);
+
+        if (bestAction != null) {
+            Node<ActionType> bestNode = rootNode.children.get(bestAction);
+            int maxVisits = bestNode.visitCount;
+            System.out.println(String.format("\nSelected move %s:", bestAction));
+            System.out.println(String.format("Visit count: %d", maxVisits));
+            System.out.println(String.format("Total value: %.3f", bestNode.totalValue));
+            System.out.println(String.format("Average value: %.3f", bestNode.totalValue / maxVisits));
+        }
+
+        return bestAction;
+    }
+
+    /**
+     * Action of the root child with the most visits, ties broken by average value; null if the
+     * root has no children.
+     */
+    static <ActionType extends Comparable> ActionType mostVisitedAction(Node<ActionType> rootNode) {
         ActionType bestAction = null;
-        Node<ActionType> bestNode = null;
         int maxVisits = -1;
         double bestValue = Double.NEGATIVE_INFINITY;
 
@@ -188,24 +570,12 @@ public class MCTS<ActionType extends Comparable> {
             int visits = entry.getValue().visitCount;
             double avgValue = visits > 0 ? entry.getValue().totalValue / visits : Double.NEGATIVE_INFINITY;
 
-            // System.out.println(String.format("\nAction %s: %d visits, avg value: %.3f",
-              //  entry.getKey(), visits, avgValue));
-
             if (visits > maxVisits || (visits == maxVisits && avgValue > bestValue)) {
                 maxVisits = visits;
                 bestAction = entry.getKey();
-                bestNode = entry.getValue();
                 bestValue = avgValue;
             }
         }
-
-        if (bestNode != null) {
-            System.out.println(String.format("\nSelected move %s:", bestAction));
-            System.out.println(String.format("Visit count: %d", maxVisits));
-            System.out.println(String.format("Total value: %.3f", bestNode.totalValue));
-            System.out.println(String.format("Average value: %.3f", bestNode.totalValue / maxVisits));
-        }
-
         return bestAction;
     }
 }
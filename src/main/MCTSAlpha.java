@@ -2,6 +2,8 @@ package main;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class MCTSAlpha<ActionType extends Comparable> {
     private final double explorationWeight;  // Used for standard UCT
@@ -15,83 +17,226 @@ public class MCTSAlpha<ActionType extends Comparable> {
         this.explorationWeight = explorationWeight;
     }
 
-    List<TrainingExample<ActionType>> trainingExamples = new ArrayList<>();
+    private int flatTreeCapacity = 0;  // 0 searches with Node objects
+    private int searchThreads = 1;     // threads sharing one Node tree per move
+    private EvaluationCache<ActionType> evaluationCache;  // null evaluates every leaf
+    private boolean symmetryAugmentation = false;
+    private int transpositionTableSize = 0;  // 0 searches Node trees without transpositions
+    private long moveTimeMillis = SearchLimits.NO_TIME_LIMIT;
+
+    /**
+     * Searches with a {@link FlatTree} of at most {@code maxNodes} nodes instead of {@link Node}
+     * objects. Pass 0 to go back to Node trees.
+     */
+    public void setFlatTreeCapacity(int maxNodes) {
+        this.flatTreeCapacity = maxNodes;
+    }
 
-    public List<TrainingExample<ActionType>> selfPlayGame(GameState<ActionType> initialState, int player1Iterations, int player2Iterations, int fullIterations, NeuralNetwork<ActionType> nn) {
-        // Create thread pool and synchronization objects
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-        List<Future<List<TrainingExample<ActionType>>>> futures = new ArrayList<>();
+    /**
+     * Number of threads that search each move's Node tree together, using virtual loss.
+     */
+    public void setSearchThreads(int threads) {
+        this.searchThreads = threads;
+    }
 
-        // Submit each full game iteration as a separate task
-        for (int i = 0; i < fullIterations; i++) {
-            int finalI = i;
-            futures.add(executor.submit(() -> playOneGame(initialState, player1Iterations, player2Iterations, nn, finalI + 1)));
-        }
+    /**
+     * Reuses network evaluations of positions seen before, in this game or in any other game
+     * sharing the cache. Pass null to evaluate every leaf.
+     */
+    public void setEvaluationCache(EvaluationCache<ActionType> cache) {
+        this.evaluationCache = cache;
+    }
 
-        // Collect results from all games
-        for (Future<List<TrainingExample<ActionType>>> future : futures) {
-            try {
-                trainingExamples.addAll(future.get());
-            } catch (InterruptedException | ExecutionException e) {
-                System.err.println("Error collecting game results: " + e.getMessage());
-                e.printStackTrace();
-            }
+    /**
+     * Shares one node between all move orders that reach the same position, using a
+     * {@link TranspositionTable} of at most {@code entries} positions for each game's tree.
+     * Flat trees are not affected. Pass 0 to search plain trees.
+     */
+    public void setTranspositionTableSize(int entries) {
+        this.transpositionTableSize = entries;
+    }
+
+    /**
+     * Ends each move's search after {@code millis} milliseconds even if it has not used its
+     * iterations, so self-play keeps to a time control.
+     */
+    public void setMoveTimeLimit(long millis) {
+        this.moveTimeMillis = millis;
+    }
+
+    /**
+     * Also emits every position of a game under each of its {@link GameState#getSymmetries()}, so
+     * one search yields up to 8 examples for tic-tac-toe.
+     */
+    public void setSymmetryAugmentation(boolean enabled) {
+        this.symmetryAugmentation = enabled;
+    }
+
+    public List<TrainingExample<ActionType>> selfPlayGame(GameState<ActionType> initialState, int player1Iterations, int player2Iterations, int fullIterations, Predictor<ActionType> nn) {
+        return selfPlayWithEvaluator(initialState, player1Iterations, player2Iterations, fullIterations, new NeuralNetworkEvaluator<>(nn));
+    }
+
+    /**
+     * Self-play with any leaf evaluator; evaluators without a policy give every move the same prior.
+     * Named apart from {@link #selfPlayGame}, since both parameter types are functional interfaces.
+     * Returns the examples of all games, so memory grows with the number of games; use
+     * {@link #selfPlayStreaming} for long runs.
+     */
+    public List<TrainingExample<ActionType>> selfPlayWithEvaluator(GameState<ActionType> initialState, int player1Iterations, int player2Iterations, int fullIterations, Evaluator<ActionType> evaluator) {
+        List<TrainingExample<ActionType>> trainingExamples = new ArrayList<>();
+        selfPlayStreaming(initialState, player1Iterations, player2Iterations, fullIterations, evaluator,
+                Runtime.getRuntime().availableProcessors(), trainingExamples::addAll);
+        return trainingExamples;
+    }
+
+    /**
+     * Plays {@code games} self-play games on a thread pool and streams each finished game to
+     * {@code sink} through a queue holding at most {@code queueCapacity} games. When the sink falls
+     * behind the queue fills up and the players wait, so memory stays bounded however many games
+     * are played. The sink runs on the calling thread, one game at a time; chain a writer and a
+     * trainer with {@link Consumer#andThen}.
+     *
+     * A game that fails does not stop the others; once all games have finished, the failures are
+     * rethrown together.
+     *
+     * @return the number of training examples passed to the sink
+     * @throws IllegalStateException if any game failed, with the first failure as its cause
+     */
+    public long selfPlayStreaming(GameState<ActionType> initialState, int player1Iterations, int player2Iterations,
+                                  int games, Evaluator<ActionType> evaluator, int queueCapacity,
+                                  Consumer<List<TrainingExample<ActionType>>> sink) {
+        int numThreads = Math.min(games, Runtime.getRuntime().availableProcessors());
+        if (numThreads <= 0) {
+            return 0;
+        }
+        BlockingQueue<List<TrainingExample<ActionType>>> finishedGames = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> players = new ArrayList<>();
+        Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < numThreads; t++) {
+            players.add(executor.submit(() -> {
+                int game;
+                while ((game = nextGame.getAndIncrement()) < games) {
+                    List<TrainingExample<ActionType>> examples;
+                    try {
+                        examples = playOneGame(initialState, player1Iterations, player2Iterations, evaluator, game + 1);
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                        continue;
+                    }
+                    // Blocks while the queue is full
+                    finishedGames.put(examples);
+                }
+                return null;
+            }));
         }
 
-        // Shutdown executor and train on all collected examples
-        executor.shutdown();
+        long streamed = 0;
         try {
-            executor.awaitTermination(1, TimeUnit.HOURS);
+            while (true) {
+                List<TrainingExample<ActionType>> examples = finishedGames.poll(100, TimeUnit.MILLISECONDS);
+                if (examples != null) {
+                    sink.accept(examples);
+                    streamed += examples.size();
+                } else if (allDone(players) && finishedGames.isEmpty()) {
+                    break;
+                }
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            System.err.println("Executor shutdown interrupted: " + e.getMessage());
+            System.err.println("Self-play interrupted: " + e.getMessage());
+        } finally {
+            executor.shutdownNow();
         }
 
-        return trainingExamples;
+        if (!failures.isEmpty()) {
+            Iterator<RuntimeException> failed = failures.iterator();
+            IllegalStateException error = new IllegalStateException(
+                    failures.size() + " of " + games + " self-play games failed", failed.next());
+            failed.forEachRemaining(error::addSuppressed);
+            throw error;
+        }
+        return streamed;
     }
 
-    private List<TrainingExample<ActionType>> playOneGame(GameState<ActionType> initialState, int player1Iterations, int player2Iterations, NeuralNetwork<ActionType> nn, int gameNumber) {
+    private static boolean allDone(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<TrainingExample<ActionType>> playOneGame(GameState<ActionType> initialState, int player1Iterations, int player2Iterations, Evaluator<ActionType> evaluator, int gameNumber) {
         List<TrainingExample<ActionType>> gameExamples = new ArrayList<>();
+        List<List<BoardSymmetry>> symmetries = new ArrayList<>();
         GameState<ActionType> state = initialState;
         System.out.println("\n=== Starting New Self-Play Game " + gameNumber + " ===");
         MCTS<ActionType> mcts = new MCTS<>();
         double temperature = 1.0; // Start with high temperature for exploration
         int moveCount = 0;
+        // The Node tree is kept between moves: each search continues under the move just played
+        TranspositionTable<ActionType> table = transpositionTableSize > 0
+                ? new TranspositionTable<>(transpositionTableSize) : null;
+        Node<ActionType> rootNode = new Node<>(state, null, searchThreads > 1);
 
         while (!state.isTerminal()) {
-            Node<ActionType> rootNode = new Node<>(state, null);
             int currentIterations = state.getCurrentPlayer() == 0 ? player1Iterations : player2Iterations;
 
             System.out.println("Player " + state.getCurrentPlayer() + " thinking with " + currentIterations + " iterations...");
 
-            // Run MCTS simulations
-            for (int i = 0; i < currentIterations; i++) {
-                //mcts.eachStep(state, rootNode);
-                eachStepAlphaZero(state, rootNode, nn, moveCount);
-            }
-
             // Adjust temperature based on move number
             if (moveCount > 15) {
                 temperature = 0.1; // Lower temperature in late game
             }
 
-            // Get improved policy from MCTS visit counts
-            int currentPlayer = state.getCurrentPlayer() == 0 ? 1 : -1;
-            Map<ActionType, Double> visitDistribution = rootNode.getVisitDistribution(temperature);
+            // Run MCTS simulations and get improved policy from MCTS visit counts
+            List<Double> policy;
+            ActionType action;
+            SearchBudget budget = new SearchBudget(SearchLimits.of(currentIterations, moveTimeMillis));
+            if (flatTreeCapacity > 0) {
+                FlatTree<ActionType> tree = new FlatTree<>(state, flatTreeCapacity);
+                while (!budget.shouldStop(null)) {
+                    eachStepAlphaZero(tree, evaluator);
+                }
+                policy = tree.getVisitDistribution(FlatTree.ROOT, temperature);
+                action = tree.getAction(tree.getBestChild(FlatTree.ROOT));
+            } else {
+                Node<ActionType> root = rootNode;
+                if (searchThreads > 1) {
+                    MCTS.runConcurrently(searchThreads, currentIterations, () -> root.fullyExplored || budget.shouldStop(null),
+                            () -> eachStepAlphaZeroParallel(root, table, evaluator));
+                } else {
+                    List<Node<ActionType>> path = new ArrayList<>();
+                    while (!budget.shouldStop(null)) {
+                        //mcts.eachStep(state, rootNode);
+                        eachStepAlphaZero(state, rootNode, table, path, evaluator, moveCount);
+                    }
+                }
+                policy = rootNode.getVisitDistributionSorted(temperature);
+
+                // Sample action based on visit distribution and temperature
+                // ActionType action = sampleFromDistribution(rootNode.getVisitDistribution(temperature), state);
+                action = getBestAction(rootNode);
+            }
 
+            int currentPlayer = state.getCurrentPlayer() == 0 ? 1 : -1;
             TrainingExample<ActionType> example = new TrainingExample<>(
                     state.convertBoard(),
-                    rootNode.getVisitDistributionSorted(temperature),
+                    policy,
                     0,
                     currentPlayer);
             gameExamples.add(example);
+            symmetries.add(symmetryAugmentation ? state.getSymmetries() : List.of());
 
-            // Sample action based on visit distribution and temperature
-            // ActionType action = sampleFromDistribution(visitDistribution, state);
-            ActionType action = getBestAction(rootNode);
             state.printCurrentPlayer();
             state = state.takeAction(action);
+            if (flatTreeCapacity == 0) {
+                rootNode = SearchSession.promote(rootNode, action, table);
+            }
 
             System.out.println("\nGame " + gameNumber + " - Board state after move " + action + ":");
             System.out.println(state);
@@ -127,12 +272,40 @@ public class MCTSAlpha<ActionType extends Comparable> {
             sign = -sign;
         }
 
-        return gameExamples;
+        return augment(gameExamples, symmetries);
     }
 
+    /**
+     * Each example followed by its distinct images under the symmetries of its position. Images
+     * identical to one already emitted, as happens for symmetric positions, are left out.
+     */
+    private static <ActionType> List<TrainingExample<ActionType>> augment(List<TrainingExample<ActionType>> examples,
+                                                                            List<List<BoardSymmetry>> symmetries) {
+        List<TrainingExample<ActionType>> augmented = new ArrayList<>(examples.size());
+        for (int i = 0; i < examples.size(); i++) {
+            int first = augmented.size();
+            augmented.add(examples.get(i));
+            for (BoardSymmetry symmetry : symmetries.get(i)) {
+                TrainingExample<ActionType> image = symmetry.apply(examples.get(i));
+                boolean duplicate = false;
+                for (int j = first; j < augmented.size() && !duplicate; j++) {
+                    duplicate = Arrays.deepEquals(image.board, augmented.get(j).board)
+                            && image.policy.equals(augmented.get(j).policy);
+                }
+                if (!duplicate) {
+                    augmented.add(image);
+                }
+            }
+        }
+        return augmented;
+    }
 
-    private void eachStepAlphaZero(GameState<ActionType> initialState, Node<ActionType> node, NeuralNetwork<ActionType> nn, int moveCount) {
+
+    private void eachStepAlphaZero(GameState<ActionType> initialState, Node<ActionType> node, TranspositionTable<ActionType> table,
+                                   List<Node<ActionType>> path, Evaluator<ActionType> evaluator, int moveCount) {
         Node<ActionType> selectedNode = node;
+        path.clear();
+        path.add(selectedNode);
 
         // Selection - use PUCT for nodes with children
         while (!selectedNode.state.isTerminal() && !selectedNode.isFullyExplored()) {
@@ -150,6 +323,12 @@ public class MCTSAlpha<ActionType extends Comparable> {
             if (selectedNode == null) {
                 throw new IllegalStateException("Child node not found");
             }
+            if (table != null && path.contains(selectedNode)) {
+                // Back at a position already on the path, as in a chess repetition: a draw
+                backpropagate(path, 0.0);
+                return;
+            }
+            path.add(selectedNode);
         }
 
         double value;
@@ -158,13 +337,10 @@ public class MCTSAlpha<ActionType extends Comparable> {
         if (!selectedNode.state.isTerminal()) {
 
             // Get neural network evaluation
-            int currentPlayer = selectedNode.state.getCurrentPlayer() == 0 ? 1 : -1;
-            TrainingExample<ActionType> inputExample = new TrainingExample<>(
-                    selectedNode.state.convertBoard(), null, 0, currentPlayer);
-            NeuralNetworkOutput<ActionType> nnOutput = nn.predict(inputExample);
+            NeuralNetworkOutput<ActionType> nnOutput = evaluate(selectedNode.state, evaluator);
 
             if (!selectedNode.hasChildren()) {
-                selectedNode.expandWithPriors(nnOutput.policyHead);
+                selectedNode.expandWithPriors(nnOutput.policyHead, table);
             }
 
             value = nnOutput.valueHead * -1;
@@ -173,19 +349,116 @@ public class MCTSAlpha<ActionType extends Comparable> {
             value = selectedNode.state.getReward(1- selectedNode.state.getCurrentPlayer());
         }
 
-        backpropagate(selectedNode, value);
+        backpropagate(path, value);
+    }
+
+    /**
+     * One iteration of eachStepAlphaZero that is safe to run concurrently on the same tree:
+     * nodes on the path carry a virtual loss until the evaluation is backpropagated.
+     */
+    private void eachStepAlphaZeroParallel(Node<ActionType> root, TranspositionTable<ActionType> table, Evaluator<ActionType> evaluator) {
+        List<Node<ActionType>> path = new ArrayList<>();
+        Node<ActionType> selectedNode = root;
+        selectedNode.addStatistics(MCTS.VIRTUAL_LOSS, -MCTS.VIRTUAL_LOSS);
+        path.add(selectedNode);
+        boolean repetition = false;
+
+        // Selection - use PUCT for nodes with children
+        while (!selectedNode.state.isTerminal() && !selectedNode.isFullyExplored()
+                && selectedNode.isFullyExpanded()) {
+            ActionType action = selectedNode.selectChildPUCT(c_puct);
+            if (action == null) {
+                break;
+            }
+            Node<ActionType> child = selectedNode.children.get(action);
+            if (table != null && path.contains(child)) {
+                repetition = true;
+                break;
+            }
+            selectedNode = child;
+            selectedNode.addStatistics(MCTS.VIRTUAL_LOSS, -MCTS.VIRTUAL_LOSS);
+            path.add(selectedNode);
+        }
+
+        double value;
+
+        // Expansion and Evaluation
+        if (repetition) {
+            // Back at a position already on the path, as in a chess repetition: a draw
+            value = 0.0;
+        } else if (!selectedNode.state.isTerminal()) {
+            NeuralNetworkOutput<ActionType> nnOutput = evaluate(selectedNode.state, evaluator);
+
+            // expandWithPriors is synchronized and skips children another thread already added
+            selectedNode.expandWithPriors(nnOutput.policyHead, table);
+            value = nnOutput.valueHead * -1;
+        } else {
+            value = selectedNode.state.getReward(1 - selectedNode.state.getCurrentPlayer());
+        }
+
+        // Backpropagation along the path, replacing the virtual loss with the real result
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).addStatistics(1 - MCTS.VIRTUAL_LOSS, value + MCTS.VIRTUAL_LOSS);
+            value = -value;
+        }
     }
 
-    private void backpropagate(Node<ActionType> node, double reward) {
-        while (node != null) {
+    private void eachStepAlphaZero(FlatTree<ActionType> tree, Evaluator<ActionType> evaluator) {
+        int node = FlatTree.ROOT;
+        GameState<ActionType> state = tree.getRootState();
+
+        // Selection - use PUCT, replaying actions since the flat tree does not store states
+        while (tree.isExpanded(node) && !state.isTerminal()) {
+            node = tree.selectChildPUCT(node, c_puct);
+            state = state.takeAction(tree.getAction(node));
+        }
+
+        double value;
+
+        // Expansion and Evaluation
+        if (!state.isTerminal()) {
+            NeuralNetworkOutput<ActionType> nnOutput = evaluate(state, evaluator);
+
+            tree.expand(node, state, nnOutput.policyHead);
+            value = nnOutput.valueHead * -1;
+        } else {
+            value = state.getReward(1 - state.getCurrentPlayer());
+        }
+
+        tree.backpropagate(node, value);
+    }
+
+    /**
+     * Leaf evaluation of a non-terminal state, served from the evaluation cache when possible.
+     */
+    private NeuralNetworkOutput<ActionType> evaluate(GameState<ActionType> state, Evaluator<ActionType> evaluator) {
+        if (evaluationCache != null) {
+            NeuralNetworkOutput<ActionType> cached = evaluationCache.get(state);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        NeuralNetworkOutput<ActionType> nnOutput = evaluator.evaluate(state);
+
+        if (evaluationCache != null) {
+            evaluationCache.put(state, nnOutput);
+        }
+        return nnOutput;
+    }
+
+    /**
+     * Backpropagates along the path from the root rather than parent links, since a node shared
+     * through a transposition table has only one parent.
+     */
+    private void backpropagate(List<Node<ActionType>> path, double reward) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<ActionType> node = path.get(i);
             node.visitCount += 1;
             node.totalValue += reward;
 
             // Invert reward for parent's perspective
             reward = -reward; // Flip sign for opponent's perspective
-
-            // Move to parent node
-            node = node.parent;
         }
     }
 
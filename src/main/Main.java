@@ -9,6 +9,8 @@ public class Main {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         MCTS<Integer> mcts = new MCTS<>();
+        // Move orders reaching the same position share one node; this table holds every position
+        mcts.setTranspositionTableSize(8192);
         GameState<Integer> currentState = new TicTacToeState();
 
         // Let player choose their symbol
@@ -42,6 +44,10 @@ public class Main {
         System.out.println(" 6 | 7 | 8 ");
         System.out.println("\nLet's begin!\n");
 
+        // One tree for the whole game: each search continues under the moves played so far
+        SearchSession<Integer> session = new SearchSession<>(mcts, currentState,
+                SearchConfig.tree(Runtime.getRuntime().availableProcessors()));
+
         while (!currentState.isTerminal()) {
             System.out.println(currentState);
             currentState.printCurrentPlayer();
@@ -51,10 +57,13 @@ public class Main {
 
             if (!isHumanTurn) { // AI's turn
                 System.out.println("\nAI is thinking...");
-                Node<Integer> rootNode = mcts.run(currentState, 1000);
+                Node<Integer> rootNode = session.search(1000);
                 Integer bestMove = mcts.getBestAction(rootNode);
+                session.advance(bestMove);
                 currentState = currentState.takeAction(bestMove);
                 System.out.println("AI plays at position: " + bestMove);
+                // Keep searching while the human thinks; the cap stops it if nobody answers
+                session.startPondering(SearchLimits.iterations(200_000));
             } else { // Human's turn
                 while (true) {
                     System.out.print("\nYour move (0-8): ");
@@ -72,6 +81,11 @@ public class Main {
                             continue;
                         }
 
+                        long pondered = session.stopPondering();
+                        if (pondered > 0) {
+                            System.out.println("(AI pondered " + pondered + " iterations while you thought)");
+                        }
+                        session.advance(position);
                         currentState = currentState.takeAction(position);
                         break;
                     } catch (NumberFormatException e) {
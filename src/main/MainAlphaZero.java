@@ -3,12 +3,19 @@ package main;
 import tictac.TicTacToeState;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 public class MainAlphaZero {
     public static void main(String[] args) throws IOException {
         MCTSAlpha<Integer> mcts = new MCTSAlpha<>();
+        // Tic-tac-toe has fewer than 6000 reachable positions, so this holds all of them
+        EvaluationCache<Integer> evaluationCache = new EvaluationCache<>(8192, EvaluationCache.Eviction.CLOCK);
+        mcts.setEvaluationCache(evaluationCache);
+        // Each searched position also yields its rotations and reflections
+        mcts.setSymmetryAugmentation(true);
+        mcts.setTranspositionTableSize(8192);
         GameState<Integer> currentState = new TicTacToeState();
         List<TrainingExample<Integer>> trainingExamples = new ArrayList<>();
         /*for(int i=0; i< 3 ; i++) {
@@ -21,13 +28,32 @@ public class MainAlphaZero {
             }
 
         }*/
-        NeuralNetwork nn = new NeuralNetwork<>();
-        for(int i=0; i< 1; i++) {
-            List<TrainingExample<Integer>> trainingExamples1 = mcts.selfPlayGame(currentState, 100, 100, 1, nn);
-            //WriteFile.writeTrainingExamplesToJSONL(i+"training_dataRI.jsonl", trainingExamples, false);
-            //nn.train(trainingExamples1);
-            //nn.load_model();
+        // Threads searching a game's tree together evaluate leaves concurrently, so their
+        // predictions can be batched
+        int searchThreads = Runtime.getRuntime().availableProcessors();
+        mcts.setSearchThreads(searchThreads);
+        boolean localModel = args.length > 0;
+        // Finished games stream into the replay buffer; training draws fixed-size batches from it
+        ReplayBuffer replayBuffer = new ReplayBuffer(100_000, 3, 3, 9, 0.6);
+        // Every game is also archived to compressed shards, written in the background
+        try (ShardedTrainingDataWriter shards = WriteFile.shardedTrainingDataWriter("training_data", "selfplay", 3, 3, 9);
+             // With a single caller the batcher would only add its wait to every request
+             BatchingNeuralNetwork<Integer> batcher = !localModel && searchThreads > 1
+                     ? new BatchingNeuralNetwork<>(searchThreads, 5) : null) {
+            NeuralNetwork<Integer> nn = batcher != null ? batcher : new NeuralNetwork<>();
+            // Given a file of exported weights, self-play runs offline with the model in this JVM
+            Predictor<Integer> predictor = localModel ? LocalNeuralNetwork.load(Path.of(args[0])) : nn;
+            for(int i=0; i< 1; i++) {
+                mcts.selfPlayStreaming(currentState, 100, 100, 1, new NeuralNetworkEvaluator<>(predictor), 16, game -> {
+                    replayBuffer.addAll(game);
+                    shards.writeAll(game);
+                });
+                System.out.println(evaluationCache);
+                //WriteFile.writeTrainingExamplesToJSONL(i+"training_dataRI.jsonl", trainingExamples, false);
+                //nn.train(replayBuffer.sampleUniform(256, new SplittableRandom()));
+                //nn.load_model();
+            }
         }
-        //WriteFile.writeTrainingExamplesToJSONL("training_data.jsonl", trainingExamples, false);
+        //WriteFile.writeTrainingExamplesToBinary("training_data.ritd", trainingExamples);
     }
 }
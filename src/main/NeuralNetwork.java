@@ -1,15 +1,20 @@
 package main;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import java.util.ArrayList;
 import java.util.HashMap;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -17,11 +22,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-public class NeuralNetwork<ActionType> {
-    private static final String BASE_URL = "http://localhost:5000";
-    private final ObjectMapper objectMapper = new ObjectMapper();
+public class NeuralNetwork<ActionType> implements Predictor<ActionType> {
+    static final String BASE_URL = "http://localhost:5000";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
     private final CloseableHttpClient httpClient = HttpClients.createDefault();
 
+    @Override
     public NeuralNetworkOutput<ActionType> predict(TrainingExample<ActionType> input) {
         try {
             HttpPost request = new HttpPost(BASE_URL + "/predict");
@@ -43,11 +49,59 @@ public class NeuralNetwork<ActionType> {
         }
     }
 
+    /**
+     * Evaluates several positions with one request to {@code /predict_batch}. The server replies
+     * with a JSON array holding one {@code {"policy": [...], "value": v}} object per input, in order.
+     */
+    @Override
+    public List<NeuralNetworkOutput<ActionType>> predictBatch(List<TrainingExample<ActionType>> inputs) {
+        try {
+            HttpPost request = new HttpPost(BASE_URL + "/predict_batch");
+            String jsonData = objectMapper.writeValueAsString(inputs);
+            request.setEntity(new StringEntity(jsonData, ContentType.APPLICATION_JSON));
+
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                if (response.getCode() != 200) {
+                    throw new IOException("Batch prediction request failed with status: " + response.getCode());
+                }
+
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent()))) {
+                    String output = reader.lines().collect(Collectors.joining("\n"));
+                    return deserializeBatchOutput(output);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to make batch prediction request", e);
+        }
+    }
+
     public void train(List<TrainingExample<ActionType>> examples) {
+        try {
+            train(new StringEntity(objectMapper.writeValueAsString(examples), ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialise training data", e);
+        }
+    }
+
+    /**
+     * Trains on a replay buffer batch, serialised straight from its primitive arrays.
+     */
+    public void train(ReplayBuffer.Batch batch) {
+        try {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+                batch.writeJson(generator);
+            }
+            train(new ByteArrayEntity(json.toByteArray(), ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialise training data", e);
+        }
+    }
+
+    private void train(HttpEntity trainingData) {
         try {
             HttpPost request = new HttpPost(BASE_URL + "/train");
-            String jsonData = objectMapper.writeValueAsString(examples);
-            request.setEntity(new StringEntity(jsonData, ContentType.APPLICATION_JSON));
+            request.setEntity(trainingData);
 
             try (CloseableHttpResponse response = httpClient.execute(request)) {
                 if (response.getCode() != 200) {
@@ -150,25 +204,43 @@ public class NeuralNetwork<ActionType> {
      * @return NeuralNetworkOutput object containing policy and value
      */
     @SuppressWarnings("unchecked")
-    private NeuralNetworkOutput<ActionType> deserializeOutput(String output) {
+    static <ActionType> NeuralNetworkOutput<ActionType> deserializeOutput(String output) {
         try {
-            Map<String, Object> jsonMap = objectMapper.readValue(output, Map.class);
-            NeuralNetworkOutput<ActionType> result = new NeuralNetworkOutput<>();
-
-            // Parse policy array
-            List<Double> policyList = (List<Double>) jsonMap.get("policy");
-            Map<ActionType, Double> policyMap = new HashMap<>();
-            for (int i = 0; i < policyList.size(); i++) {
-                policyMap.put((ActionType) Integer.valueOf(i), policyList.get(i));
-            }
-            result.policyHead = policyMap;
-
-            // Parse value
-            result.valueHead = ((Number) jsonMap.get("value")).doubleValue();
-
-            return result;
+            return toOutput(objectMapper.readValue(output, Map.class));
         } catch (Exception e) {
             throw new IllegalArgumentException("Failed to parse JSON output: " + output, e);
         }
     }
+
+    @SuppressWarnings("unchecked")
+    static <ActionType> List<NeuralNetworkOutput<ActionType>> deserializeBatchOutput(String output) {
+        try {
+            List<Map<String, Object>> jsonList = objectMapper.readValue(output, List.class);
+            List<NeuralNetworkOutput<ActionType>> results = new ArrayList<>(jsonList.size());
+            for (Map<String, Object> jsonMap : jsonList) {
+                results.add(toOutput(jsonMap));
+            }
+            return results;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to parse JSON batch output: " + output, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <ActionType> NeuralNetworkOutput<ActionType> toOutput(Map<String, Object> jsonMap) {
+        NeuralNetworkOutput<ActionType> result = new NeuralNetworkOutput<>();
+
+        // Parse policy array
+        List<Double> policyList = (List<Double>) jsonMap.get("policy");
+        Map<ActionType, Double> policyMap = new HashMap<>();
+        for (int i = 0; i < policyList.size(); i++) {
+            policyMap.put((ActionType) Integer.valueOf(i), policyList.get(i));
+        }
+        result.policyHead = policyMap;
+
+        // Parse value
+        result.valueHead = ((Number) jsonMap.get("value")).doubleValue();
+
+        return result;
+    }
 }
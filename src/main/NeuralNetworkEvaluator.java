@@ -0,0 +1,20 @@
+package main;
+
+/**
+ * Evaluates leaves with a policy/value network, remote or local.
+ */
+public class NeuralNetworkEvaluator<ActionType> implements Evaluator<ActionType> {
+    private final Predictor<ActionType> predictor;
+
+    public NeuralNetworkEvaluator(Predictor<ActionType> predictor) {
+        this.predictor = predictor;
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> evaluate(GameState<ActionType> state) {
+        int currentPlayer = state.getCurrentPlayer() == 0 ? 1 : -1;
+        TrainingExample<ActionType> inputExample = new TrainingExample<>(
+                state.convertBoard(), null, 0, currentPlayer);
+        return predictor.predict(inputExample);
+    }
+}
@@ -1,8 +1,85 @@
 package main;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class NeuralNetworkOutput<ActionType> {
     public Map<ActionType, Double> policyHead;
     public double valueHead;
+    public float[] policy;  // raw policy vector in action index order, when the transport provides one
+
+    /**
+     * Output built from a policy vector, keyed by action index like the JSON responses of
+     * {@link NeuralNetwork#predict}. The policy map is a read-only view of the vector, so
+     * nothing is boxed unless a caller reads it; callers that can should use {@link #policy}.
+     */
+    public static <ActionType> NeuralNetworkOutput<ActionType> fromPolicyVector(float[] policy, double value) {
+        NeuralNetworkOutput<ActionType> result = new NeuralNetworkOutput<>();
+        result.policyHead = new PolicyVectorMap<>(policy);
+        result.policy = policy;
+        result.valueHead = value;
+        return result;
+    }
+
+    /**
+     * Map from action index to the probability in a policy vector.
+     */
+    private static final class PolicyVectorMap<ActionType> extends AbstractMap<ActionType, Double> {
+        private final float[] policy;
+
+        PolicyVectorMap(float[] policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public Double get(Object key) {
+            return containsKey(key) ? (double) policy[(Integer) key] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer index && index >= 0 && index < policy.length;
+        }
+
+        @Override
+        public int size() {
+            return policy.length;
+        }
+
+        @Override
+        public Set<Entry<ActionType, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return policy.length;
+                }
+
+                @Override
+                public Iterator<Entry<ActionType, Double>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < policy.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<ActionType, Double> next() {
+                            if (next >= policy.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = next++;
+                            return new SimpleImmutableEntry<>((ActionType) Integer.valueOf(index), (double) policy[index]);
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
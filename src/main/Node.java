@@ -1,6 +1,9 @@
 package main;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class Node<ActionType extends Comparable> {
@@ -12,24 +15,90 @@ public class Node<ActionType extends Comparable> {
     double totalValue;
     private static final int VISIT_THRESHOLD = 10;  // Minimum visits before considering a node fully explored
     boolean fullyExplored;
+    private volatile ActionType[] actions;   // legal actions of state, computed on first use
+    private int nextUntried;        // actions before this index already have a child
+
+    private static final VarHandle VISIT_COUNT;
+    private static final VarHandle TOTAL_VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VISIT_COUNT = lookup.findVarHandle(Node.class, "visitCount", int.class);
+            TOTAL_VALUE = lookup.findVarHandle(Node.class, "totalValue", double.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public Node(GameState<ActionType> state, Node<ActionType> parent) {
+        this(state, parent, parent != null && parent.isConcurrent());
+    }
+
+    /**
+     * @param concurrent whether several threads may use the tree under this node at once, which
+     *                   needs concurrent maps; nodes created below it inherit the setting
+     */
+    Node(GameState<ActionType> state, Node<ActionType> parent, boolean concurrent) {
         this.state = state;
         this.parent = parent;
-        this.children = new HashMap<>();
+        // Concurrent maps so that parallel searches can select while another thread expands;
+        // a single-threaded search keeps the cheaper plain maps
+        this.children = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
         this.visitCount = 0;
-        this.priorProbabilities = new HashMap<>();
+        this.priorProbabilities = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
         this.totalValue = 0.0;
     }
 
-    public boolean isFullyExpanded() {
-        // Ensure legal actions are available
-        if (state.getLegalActions().isEmpty()) {
-            return true; // Terminal state is considered fully expanded
+    boolean isConcurrent() {
+        return children instanceof ConcurrentHashMap;
+    }
+
+    /**
+     * Atomically adds to the visit count and total value, for searches where several threads
+     * update the same tree. Also used to apply and revert virtual loss.
+     */
+    void addStatistics(int visits, double value) {
+        VISIT_COUNT.getAndAdd(this, visits);
+        double current;
+        do {
+            current = (double) TOTAL_VALUE.getVolatile(this);
+        } while (!TOTAL_VALUE.compareAndSet(this, current, current + value));
+    }
+
+    /**
+     * Legal actions of this node's state, generated once and kept for the lifetime of the node.
+     * The returned array must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    ActionType[] getActions() {
+        ActionType[] result = actions;
+        if (result == null) {
+            result = (ActionType[]) state.getLegalActions().toArray(new Comparable[0]);
+            actions = result;
         }
+        return result;
+    }
+
+    public boolean isFullyExpanded() {
+        // A terminal state has no legal actions and is considered fully expanded;
+        // otherwise compare number of children to legal actions
+        return children.size() >= getActions().length;
+    }
+
+    public int getVisitCount() {
+        return visitCount;
+    }
 
-        // Compare number of children to legal actions
-        return children.size() >= state.getLegalActions().size();
+    public double getTotalValue() {
+        return totalValue;
+    }
+
+    /**
+     * The child reached by {@code action}, or null if it has not been expanded.
+     */
+    public Node<ActionType> getChild(ActionType action) {
+        return children.get(action);
     }
 
     public boolean isFullyExplored(){
@@ -109,12 +178,26 @@ public class Node<ActionType extends Comparable> {
 
 
     public Node<ActionType> expand() {
-        for (ActionType action : state.getLegalActions()) {
+        return expand(null);
+    }
+
+    /**
+     * Adds a child for the next untried action and returns it. With a transposition table, a
+     * position already in the table is shared instead of creating a new node.
+     */
+    public synchronized Node<ActionType> expand(TranspositionTable<ActionType> table) {
+        ActionType[] legalActions = getActions();
+        // Actions are tried in order, so the cursor only skips children added by other expansions
+        while (nextUntried < legalActions.length) {
+            ActionType action = legalActions[nextUntried++];
             if (!children.containsKey(action)) {
                 GameState<ActionType> newState = state.takeAction(action);
-                Node<ActionType> newChild = new Node<>(newState, this);
+                Node<ActionType> newChild = table == null ? new Node<>(newState, this) : table.getOrCreate(newState, this);
                 children.put(action, newChild);
-                newChild.setFullyExplored();
+                // A shared node keeps the parent that created it, which also tracks its exploration
+                if (newChild.parent == this) {
+                    newChild.setFullyExplored();
+                }
                 return newChild;
             }
         }
@@ -122,14 +205,30 @@ public class Node<ActionType extends Comparable> {
     }
 
     public void expandWithPriors(Map<ActionType, Double> policy) {
+        expandWithPriors(policy, null);
+    }
+
+    /**
+     * Creates a child for every legal action, with the given prior probabilities; a null policy
+     * gives every legal action the same prior. Children are shared through {@code table} if it is
+     * not null.
+     */
+    public synchronized void expandWithPriors(Map<ActionType, Double> policy, TranspositionTable<ActionType> table) {
         // Store prior probabilities
-        this.priorProbabilities.putAll(policy);
+        if (policy != null) {
+            this.priorProbabilities.putAll(policy);
+        } else {
+            ActionType[] legalActions = getActions();
+            for (ActionType action : legalActions) {
+                this.priorProbabilities.put(action, 1.0 / legalActions.length);
+            }
+        }
 
         // Create child nodes for all legal actions
-        for (ActionType action : state.getLegalActions()) {
+        for (ActionType action : getActions()) {
             if (!children.containsKey(action)) {
                 GameState<ActionType> newState = state.takeAction(action);
-                Node<ActionType> newChild = new Node<>(newState, this);
+                Node<ActionType> newChild = table == null ? new Node<>(newState, this) : table.getOrCreate(newState, this);
                 children.put(action, newChild);
             }
         }
@@ -205,23 +304,22 @@ public class Node<ActionType extends Comparable> {
     private Map<ActionType, Double> getDistribution(double temperature) {
         Map<ActionType, Double> distribution = new HashMap<>();
         double sum = 0.0;
-        List<ActionType> legalActions = state.getLegalActions();
+        ActionType[] legalActions = getActions();
 
         // Initialize all legal actions with zero probability
         for (ActionType action : state.getAllActions()) {
             distribution.put(action, 0.0);
         }
 
-        // Calculate visit count based distribution with temperature
+        // Calculate visit count based distribution with temperature.
+        // Children are only ever created for legal actions.
         for (Map.Entry<ActionType, Node<ActionType>> entry : children.entrySet()) {
-            if (legalActions.contains(entry.getKey())) {
-                Node<ActionType> child = entry.getValue();
-                if (child.visitCount > 0) {
-                    // Apply temperature to visit counts: visits^(1/temperature)
-                    double temperedVisits = Math.pow(child.visitCount, 1.0 / temperature);
-                    distribution.put(entry.getKey(), temperedVisits);
-                    sum += temperedVisits;
-                }
+            Node<ActionType> child = entry.getValue();
+            if (child.visitCount > 0) {
+                // Apply temperature to visit counts: visits^(1/temperature)
+                double temperedVisits = Math.pow(child.visitCount, 1.0 / temperature);
+                distribution.put(entry.getKey(), temperedVisits);
+                sum += temperedVisits;
             }
         }
 
@@ -231,7 +329,7 @@ public class Node<ActionType extends Comparable> {
             distribution.replaceAll((k, v) -> v / finalSum);
         } else {
             // If no visits, return uniform distribution over legal actions
-            double uniformProb = 1.0 / legalActions.size();
+            double uniformProb = 1.0 / legalActions.length;
             for (ActionType action : legalActions) {
                 distribution.put(action, uniformProb);
             }
@@ -247,9 +345,9 @@ public class Node<ActionType extends Comparable> {
      * @return The newly created child node, or null if no expansion was possible
      * @throws IllegalStateException if policy contains invalid moves or probabilities
      */
-    public Node<ActionType> expandWithPolicy(Map<ActionType, Double> policy) {
+    public synchronized Node<ActionType> expandWithPolicy(Map<ActionType, Double> policy) {
         // Get legal actions for current state
-        List<ActionType> legalActions = state.getLegalActions();
+        List<ActionType> legalActions = Arrays.asList(getActions());
 
         // If no legal actions or node is terminal, return null
         if (legalActions.isEmpty() || state.isTerminal()) {
@@ -0,0 +1,35 @@
+package main;
+
+/**
+ * Mutable board for fast random playouts, offered by games through
+ * {@link GameState#newPlayoutBoard()}. Unlike {@link GameState} it is changed in place, and
+ * actions are their {@link GameState#actionIndex(Object)} so move lists fit in a reusable
+ * {@code int[]}. A playout on a loaded board should not allocate.
+ */
+public interface PlayoutBoard {
+
+    /**
+     * Copies {@code state} into this board, or returns false if it is not a state of this
+     * board's game.
+     */
+    boolean load(GameState<?> state);
+
+    /**
+     * Size that an action buffer needs: the number of actions in {@link GameState#getAllActions()}.
+     */
+    int getActionCount();
+
+    /**
+     * Writes the legal actions into {@code actions}, which holds at least
+     * {@link #getActionCount()} entries, and returns how many there are.
+     */
+    int legalActions(int[] actions);
+
+    void play(int action);
+
+    boolean isTerminal();
+
+    int getCurrentPlayer();
+
+    double getReward(int player);
+}
@@ -0,0 +1,20 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Policy and value prediction for a position, whether from the remote {@link NeuralNetwork}
+ * server or a model running in this JVM ({@link LocalNeuralNetwork}).
+ */
+public interface Predictor<ActionType> {
+    NeuralNetworkOutput<ActionType> predict(TrainingExample<ActionType> input);
+
+    default List<NeuralNetworkOutput<ActionType>> predictBatch(List<TrainingExample<ActionType>> inputs) {
+        List<NeuralNetworkOutput<ActionType>> outputs = new ArrayList<>(inputs.size());
+        for (TrainingExample<ActionType> input : inputs) {
+            outputs.add(predict(input));
+        }
+        return outputs;
+    }
+}
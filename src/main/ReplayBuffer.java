@@ -0,0 +1,320 @@
+package main;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fixed-capacity store of training positions for continuous training. Once full, each new position
+ * replaces the oldest one.
+ *
+ * Positions are kept in flat primitive arrays: boards as one byte per cell, policies and values as
+ * floats. Self-play threads append concurrently, and trainers draw minibatches either uniformly or
+ * in proportion to a per-position priority (prioritised experience replay). New positions get the
+ * highest priority seen so far, so they are likely to be sampled at least once.
+ */
+public class ReplayBuffer {
+    private final int capacity;
+    private final int rows;
+    private final int cols;
+    private final int boardSize;
+    private final int policySize;
+    private final double alpha;
+
+    private final byte[] boards;
+    private final float[] policies;
+    private final float[] values;
+    private final byte[] currentPlayers;
+
+    // Sum tree over priority^alpha: leaves at [treeSize, 2 * treeSize), each parent the sum of its children
+    private final int treeSize;
+    private final double[] priorityTree;
+    private double maxPriority = 1.0;
+
+    private long added;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param alpha how strongly priorities skew prioritised sampling; 0 is uniform
+     */
+    public ReplayBuffer(int capacity, int rows, int cols, int policySize, double alpha) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.rows = rows;
+        this.cols = cols;
+        this.boardSize = rows * cols;
+        this.policySize = policySize;
+        this.alpha = alpha;
+        this.boards = new byte[capacity * boardSize];
+        this.policies = new float[capacity * policySize];
+        this.values = new float[capacity];
+        this.currentPlayers = new byte[capacity];
+        int leaves = 1;
+        while (leaves < capacity) {
+            leaves <<= 1;
+        }
+        this.treeSize = leaves;
+        this.priorityTree = new double[2 * treeSize];
+    }
+
+    public void add(TrainingExample<?> example) {
+        lock.writeLock().lock();
+        try {
+            store(example);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a whole game under one lock acquisition; usable as a self-play sink.
+     */
+    public void addAll(List<? extends TrainingExample<?>> examples) {
+        lock.writeLock().lock();
+        try {
+            for (TrainingExample<?> example : examples) {
+                store(example);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void store(TrainingExample<?> example) {
+        if (example.board.length != rows || (rows > 0 && example.board[0].length != cols)) {
+            throw new IllegalArgumentException("Board is not " + rows + "x" + cols);
+        }
+        if (example.policy.size() != policySize) {
+            throw new IllegalArgumentException("Policy has " + example.policy.size() + " entries, expected " + policySize);
+        }
+
+        int slot = (int) (added % capacity);
+        int offset = slot * boardSize;
+        for (int[] row : example.board) {
+            for (int cell : row) {
+                boards[offset++] = (byte) cell;
+            }
+        }
+        offset = slot * policySize;
+        for (Double probability : example.policy) {
+            policies[offset++] = probability.floatValue();
+        }
+        values[slot] = (float) example.value;
+        currentPlayers[slot] = (byte) example.current_player;
+        setPriority(slot, maxPriority);
+        added++;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return (int) Math.min(added, capacity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of positions ever added, including evicted ones.
+     */
+    public long totalAdded() {
+        lock.readLock().lock();
+        try {
+            return added;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@code batchSize} positions drawn uniformly with replacement.
+     */
+    public Batch sampleUniform(int batchSize, SplittableRandom random) {
+        lock.readLock().lock();
+        try {
+            int size = (int) Math.min(added, capacity);
+            checkNotEmpty(size);
+            Batch batch = new Batch(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                copy(random.nextInt(size), batch, i, 1.0f);
+            }
+            return batch;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@code batchSize} positions drawn with replacement in proportion to priority^alpha. Each
+     * position carries the importance-sampling weight {@code (size * P(i))^-beta}, normalised by the
+     * largest weight in the batch, to correct the bias this introduces.
+     */
+    public Batch samplePrioritized(int batchSize, double beta, SplittableRandom random) {
+        lock.readLock().lock();
+        try {
+            int size = (int) Math.min(added, capacity);
+            checkNotEmpty(size);
+            double total = priorityTree[1];
+            Batch batch = new Batch(batchSize);
+            float maxWeight = 0.0f;
+            for (int i = 0; i < batchSize; i++) {
+                int slot = findSlot(random.nextDouble() * total);
+                double probability = priorityTree[treeSize + slot] / total;
+                float weight = (float) Math.pow(size * probability, -beta);
+                maxWeight = Math.max(maxWeight, weight);
+                copy(slot, batch, i, weight);
+            }
+            for (int i = 0; i < batchSize; i++) {
+                batch.weights[i] /= maxWeight;
+            }
+            return batch;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the priorities of sampled positions, typically to their training loss. Positions that
+     * have been evicted since they were sampled are skipped.
+     */
+    public void updatePriorities(Batch batch, float[] priorities) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < batch.size; i++) {
+                if (added - batch.sequence[i] <= capacity) {
+                    double priority = Math.max(priorities[i], 1e-6);
+                    maxPriority = Math.max(maxPriority, priority);
+                    setPriority(batch.indices[i], priority);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkNotEmpty(int size) {
+        if (size == 0) {
+            throw new IllegalStateException("Replay buffer is empty");
+        }
+    }
+
+    private void setPriority(int slot, double priority) {
+        int node = treeSize + slot;
+        priorityTree[node] = Math.pow(priority, alpha);
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            priorityTree[node] = priorityTree[2 * node] + priorityTree[2 * node + 1];
+        }
+    }
+
+    /**
+     * Slot whose cumulative priority range contains {@code target}.
+     */
+    private int findSlot(double target) {
+        int node = 1;
+        while (node < treeSize) {
+            int left = 2 * node;
+            if (target < priorityTree[left] || priorityTree[left + 1] == 0.0) {
+                node = left;
+            } else {
+                target -= priorityTree[left];
+                node = left + 1;
+            }
+        }
+        return node - treeSize;
+    }
+
+    private void copy(int slot, Batch batch, int i, float weight) {
+        System.arraycopy(boards, slot * boardSize, batch.boards, i * boardSize, boardSize);
+        System.arraycopy(policies, slot * policySize, batch.policies, i * policySize, policySize);
+        batch.values[i] = values[slot];
+        batch.currentPlayers[i] = currentPlayers[slot];
+        batch.indices[i] = slot;
+        // Sequence number of the position in this slot, to detect eviction before a priority update
+        long newest = added - 1;
+        batch.sequence[i] = newest - Math.floorMod(newest - slot, (long) capacity);
+        batch.weights[i] = weight;
+    }
+
+    /**
+     * A sampled minibatch, laid out like the buffer: row {@code i} of each array is position i.
+     */
+    public class Batch {
+        public final int size;
+        public final byte[] boards;
+        public final float[] policies;
+        public final float[] values;
+        public final byte[] currentPlayers;
+        public final float[] weights;
+        final int[] indices;
+        final long[] sequence;
+
+        Batch(int size) {
+            this.size = size;
+            this.boards = new byte[size * boardSize];
+            this.policies = new float[size * policySize];
+            this.values = new float[size];
+            this.currentPlayers = new byte[size];
+            this.weights = new float[size];
+            this.indices = new int[size];
+            this.sequence = new long[size];
+        }
+
+        /**
+         * Writes the batch as a JSON array laid out like a serialised list of TrainingExamples,
+         * straight from the primitive arrays, for {@link NeuralNetwork#train(Batch)}.
+         */
+        public void writeJson(JsonGenerator generator) throws IOException {
+            generator.writeStartArray();
+            for (int i = 0; i < size; i++) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("board");
+                for (int r = 0; r < rows; r++) {
+                    generator.writeStartArray();
+                    for (int c = 0; c < cols; c++) {
+                        generator.writeNumber(boards[i * boardSize + r * cols + c]);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("policy");
+                for (int p = 0; p < policySize; p++) {
+                    generator.writeNumber((double) policies[i * policySize + p]);
+                }
+                generator.writeEndArray();
+                generator.writeNumberField("value", (double) values[i]);
+                generator.writeNumberField("current_player", currentPlayers[i]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+
+        /**
+         * The batch as TrainingExamples, for {@link NeuralNetwork#train(List)}. This boxes every
+         * policy entry; {@link #writeJson} does not.
+         */
+        public <ActionType> List<TrainingExample<ActionType>> toTrainingExamples() {
+            List<TrainingExample<ActionType>> examples = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int[][] board = new int[rows][cols];
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        board[r][c] = boards[i * boardSize + r * cols + c];
+                    }
+                }
+                List<Double> policy = new ArrayList<>(policySize);
+                for (int p = 0; p < policySize; p++) {
+                    policy.add((double) policies[i * policySize + p]);
+                }
+                examples.add(new TrainingExample<>(board, policy, values[i], currentPlayers[i]));
+            }
+            return examples;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package main;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Plays uniformly random moves until the game ends. The result is shaped by game length, so that
+ * quick wins count for more than slow ones and slow losses hurt less than quick ones.
+ *
+ * Games that offer a {@link PlayoutBoard} are played out on a board and action buffer kept per
+ * thread, which does not allocate; others go through {@link GameState#takeAction}.
+ */
+public class RolloutEvaluator<ActionType> implements Evaluator<ActionType> {
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(SplittableRandom::new);
+
+    /**
+     * Playout board and action buffer of one thread, reused while states are of the same game.
+     */
+    private static final class Workspace {
+        PlayoutBoard board;
+        int[] actions = new int[0];
+    }
+
+    private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * The calling thread's random generator, for playouts that must not share one.
+     */
+    static SplittableRandom random() {
+        return RANDOM.get();
+    }
+
+    @Override
+    public NeuralNetworkOutput<ActionType> evaluate(GameState<ActionType> state) {
+        return Evaluator.valueOnly(playout(state));
+    }
+
+    /**
+     * Value of one random playout from {@code state} for the player to move; the value of
+     * {@link #evaluate}, without allocating its result.
+     */
+    public double playout(GameState<ActionType> state) {
+        int maxDepth = Math.max(state.getMaximumPlays(), 1);
+        Workspace work = workspace.get();
+        PlayoutBoard board = work.board;
+        if (board == null || !board.load(state)) {
+            board = state.newPlayoutBoard();
+            if (board == null) {
+                return playoutStates(state, maxDepth);
+            }
+            board.load(state);
+            work.board = board;
+            if (work.actions.length < board.getActionCount()) {
+                work.actions = new int[board.getActionCount()];
+            }
+        }
+
+        SplittableRandom random = RANDOM.get();
+        int[] actions = work.actions;
+        int depth = 0;
+        while (!board.isTerminal()) {
+            int count = board.legalActions(actions);
+            board.play(actions[random.nextInt(count)]);
+            depth++;
+        }
+
+        // Reward of the player who moved into state, turned around to the player to move
+        double baseReward = board.getReward(1 - state.getCurrentPlayer());
+        return -shapeReward(baseReward, depth, maxDepth);
+    }
+
+    private double playoutStates(GameState<ActionType> state, int maxDepth) {
+        GameState<ActionType> currentState = state;
+        SplittableRandom random = RANDOM.get();
+        int depth = 0;
+
+        while (!currentState.isTerminal()) {
+            List<ActionType> actions = currentState.getLegalActions();
+            currentState = currentState.takeAction(actions.get(random.nextInt(actions.size())));
+            depth++;
+        }
+
+        double baseReward = currentState.getReward(1 - state.getCurrentPlayer());
+        return -shapeReward(baseReward, depth, maxDepth);
+    }
+
+    public static double shapeReward(double baseReward, int depth, int maxDepth) {
+        // Normalize depth between 0 (fastest) and 1 (slowest)
+        double normalizedDepth = Math.min(1.0, Math.max(0.0, depth / (double) maxDepth));
+
+        // Win: Exponential decay from 1.0 to 0.2
+        if (baseReward == 1.0) {
+            return 0.8 * Math.exp(-1.6 * normalizedDepth) + 0.2;
+        }
+        // Draw: Neutral value
+        else if (baseReward == 0.0) {
+            return 0.0;
+        }
+        // Loss: Linear penalty from -1.0 to -0.2
+        else {
+            return -1.0 + 0.8 * normalizedDepth;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The running state of one search under {@link SearchLimits}: counts iterations, reads the clock
+ * every {@code checkInterval} iterations, and can be stopped from another thread at any time.
+ * Safe to share between the threads of a parallel search.
+ */
+class SearchBudget {
+    private final SearchLimits limits;
+    private final long startNanos;
+    private final long deadlineNanos;
+    private final AtomicLong started = new AtomicLong();
+    private volatile boolean stopped;
+
+    SearchBudget(SearchLimits limits) {
+        this.limits = limits;
+        this.startNanos = System.nanoTime();
+        // A deadline beyond the range of nanoTime means no deadline
+        this.deadlineNanos = limits.maxMillis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : startNanos + limits.maxMillis * 1_000_000;
+    }
+
+    /**
+     * Called before each iteration; true once the search should end. {@code root} is only read
+     * for early stopping and may be null without it.
+     */
+    boolean shouldStop(Node<?> root) {
+        if (stopped) {
+            return true;
+        }
+        long iteration = started.incrementAndGet();
+        if (iteration > limits.maxIterations) {
+            stopped = true;
+        } else if (iteration % limits.checkInterval == 0) {
+            long now = System.nanoTime();
+            if (deadlineNanos != Long.MAX_VALUE && now - deadlineNanos >= 0) {
+                stopped = true;
+            } else if (limits.earlyStop && root != null && leadIsSafe(root, iteration, now)) {
+                stopped = true;
+            }
+        }
+        return stopped;
+    }
+
+    /**
+     * True if the most visited root child is ahead of the runner-up by more visits than the
+     * iterations left, the ones left in time estimated from the rate so far.
+     */
+    private boolean leadIsSafe(Node<?> root, long iteration, long now) {
+        if (root.getActions().length == 1) {
+            return true;
+        }
+        int best = 0;
+        int second = 0;
+        for (Node<?> child : root.children.values()) {
+            int visits = child.visitCount;
+            if (visits > best) {
+                second = best;
+                best = visits;
+            } else if (visits > second) {
+                second = visits;
+            }
+        }
+
+        double remaining = (double) limits.maxIterations - iteration;
+        if (deadlineNanos != Long.MAX_VALUE) {
+            double perNano = (double) iteration / Math.max(1, now - startNanos);
+            remaining = Math.min(remaining, perNano * (deadlineNanos - now));
+        }
+        return best - second > remaining;
+    }
+
+    /**
+     * Ends the search before its next iteration.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long getIterations() {
+        return Math.min(started.get(), limits.maxIterations);
+    }
+}
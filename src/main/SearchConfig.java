@@ -0,0 +1,54 @@
+package main;
+
+/**
+ * How {@link MCTS#run(GameState, int, SearchConfig)} spreads a search over threads.
+ */
+public class SearchConfig {
+    public enum Mode {
+        /** One thread, one tree. */
+        SEQUENTIAL,
+        /** All threads share one tree, separated by virtual loss. */
+        TREE,
+        /** Each thread searches its own tree; root statistics are merged at the end. */
+        ROOT,
+        /** One tree; every expanded leaf is evaluated by several random playouts at once. */
+        LEAF
+    }
+
+    public final Mode mode;
+    public final int threads;
+    public final int virtualLoss;   // only used in TREE mode
+
+    public SearchConfig(Mode mode, int threads, int virtualLoss) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        this.mode = mode;
+        this.threads = threads;
+        this.virtualLoss = virtualLoss;
+    }
+
+    public static SearchConfig sequential() {
+        return new SearchConfig(Mode.SEQUENTIAL, 1, 0);
+    }
+
+    public static SearchConfig tree(int threads) {
+        return new SearchConfig(Mode.TREE, threads, MCTS.VIRTUAL_LOSS);
+    }
+
+    public static SearchConfig root(int threads) {
+        return new SearchConfig(Mode.ROOT, threads, 0);
+    }
+
+    /**
+     * @param playouts random playouts run in parallel for each expanded leaf
+     */
+    public static SearchConfig leaf(int playouts) {
+        return new SearchConfig(Mode.LEAF, playouts, 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(threads=%d, virtualLoss=%d)", mode, threads, virtualLoss);
+    }
+}
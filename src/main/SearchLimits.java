@@ -0,0 +1,62 @@
+package main;
+
+/**
+ * When a search stops: after a number of iterations, after a wall-clock budget, or whichever
+ * comes first. With early stopping the search also ends once the most visited root child cannot
+ * be overtaken in the budget that is left.
+ */
+public class SearchLimits {
+    public static final int NO_ITERATION_LIMIT = Integer.MAX_VALUE;
+    public static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+    public final int maxIterations;
+    public final long maxMillis;
+    public final boolean earlyStop;
+    public final int checkInterval;  // iterations between reads of the clock and early stop checks
+
+    public SearchLimits(int maxIterations, long maxMillis, boolean earlyStop, int checkInterval) {
+        if (maxIterations < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("Limits must not be negative: " + maxIterations + ", " + maxMillis);
+        }
+        if (checkInterval < 1) {
+            throw new IllegalArgumentException("checkInterval must be at least 1: " + checkInterval);
+        }
+        this.maxIterations = maxIterations;
+        this.maxMillis = maxMillis;
+        this.earlyStop = earlyStop;
+        this.checkInterval = checkInterval;
+    }
+
+    public static SearchLimits iterations(int iterations) {
+        return new SearchLimits(iterations, NO_TIME_LIMIT, false, 16);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(NO_ITERATION_LIMIT, millis, false, 16);
+    }
+
+    /**
+     * Stops at {@code iterations} or {@code millis}, whichever is reached first.
+     */
+    public static SearchLimits of(int iterations, long millis) {
+        return new SearchLimits(iterations, millis, false, 16);
+    }
+
+    /**
+     * No limit at all: the search runs until it is stopped from another thread.
+     */
+    public static SearchLimits unlimited() {
+        return new SearchLimits(NO_ITERATION_LIMIT, NO_TIME_LIMIT, false, 16);
+    }
+
+    public SearchLimits withEarlyStop() {
+        return new SearchLimits(maxIterations, maxMillis, true, checkInterval);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchLimits(iterations=%s, millis=%s, earlyStop=%b)",
+                maxIterations == NO_ITERATION_LIMIT ? "none" : maxIterations,
+                maxMillis == NO_TIME_LIMIT ? "none" : maxMillis, earlyStop);
+    }
+}
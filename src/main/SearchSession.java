@@ -0,0 +1,211 @@
+package main;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * An {@link MCTS} search that lives for a whole game. After a move is played, by either side,
+ * {@link #advance} makes the matching child the new root: its statistics are kept and the rest of
+ * the tree is dropped, so each move starts from the visits earlier searches spent on it.
+ *
+ * Searches are anytime: while one runs, other threads may read {@link #getBestAction()} or call
+ * {@link #stop()}. While the opponent thinks, {@link #startPondering()} keeps searching on a
+ * background thread; {@link #advance} stops it and keeps the subtree of the move played.
+ * Searching and advancing must otherwise happen on one thread at a time.
+ */
+public class SearchSession<ActionType extends Comparable> {
+    private final MCTS<ActionType> mcts;
+    private final SearchConfig config;
+    private final TranspositionTable<ActionType> table;
+    private volatile Node<ActionType> root;
+    private volatile SearchBudget running;
+    private Thread ponderer;
+    private volatile RuntimeException ponderFailure;
+
+    public SearchSession(MCTS<ActionType> mcts, GameState<ActionType> initialState) {
+        this(mcts, initialState, SearchConfig.sequential());
+    }
+
+    /**
+     * @param config how each search is spread over threads; ROOT mode is not supported, since it
+     *               does not keep a tree
+     */
+    public SearchSession(MCTS<ActionType> mcts, GameState<ActionType> initialState, SearchConfig config) {
+        if (config.mode == SearchConfig.Mode.ROOT) {
+            throw new IllegalArgumentException("A search session needs a single tree; ROOT mode merges separate ones");
+        }
+        this.mcts = mcts;
+        this.config = config;
+        this.table = mcts.newTranspositionTable();
+        // Concurrent nodes even for sequential searches, since other threads may read the tree
+        this.root = new Node<>(initialState, null, true);
+    }
+
+    /**
+     * Adds {@code iterations} iterations to the search from the current position.
+     */
+    public Node<ActionType> search(int iterations) {
+        return search(SearchLimits.iterations(iterations));
+    }
+
+    /**
+     * Searches from the current position until {@code limits} are reached or {@link #stop()} is
+     * called.
+     */
+    public Node<ActionType> search(SearchLimits limits) {
+        stopPondering();
+        SearchBudget budget = new SearchBudget(limits);
+        running = budget;
+        try {
+            mcts.search(root, table, budget, config);
+        } finally {
+            running = null;
+        }
+        return root;
+    }
+
+    /**
+     * Ends the running search, if any, before its next iteration. The search call returns soon
+     * after, with the statistics gathered so far.
+     */
+    public void stop() {
+        SearchBudget budget = running;
+        if (budget != null) {
+            budget.stop();
+        }
+    }
+
+    public Node<ActionType> getRoot() {
+        return root;
+    }
+
+    public GameState<ActionType> getState() {
+        return root.state;
+    }
+
+    /**
+     * Searches from the current position on a background thread until {@link #advance},
+     * {@link #search} or {@link #stopPondering()} is called.
+     */
+    public void startPondering() {
+        startPondering(SearchLimits.unlimited());
+    }
+
+    /**
+     * Like {@link #startPondering()}, but also ends at {@code limits}, which bounds the memory a
+     * long wait can use.
+     */
+    public synchronized void startPondering(SearchLimits limits) {
+        stopPondering();
+        if (root.state.isTerminal()) {
+            return;
+        }
+        // The budget is in place before the thread starts, so an immediate stop cannot be missed
+        SearchBudget budget = new SearchBudget(limits);
+        Node<ActionType> ponderRoot = root;
+        running = budget;
+        ponderer = new Thread(() -> {
+            try {
+                mcts.search(ponderRoot, table, budget, config);
+            } catch (RuntimeException e) {
+                ponderFailure = e;
+            }
+        }, "ponder");
+        ponderer.setDaemon(true);
+        ponderer.start();
+    }
+
+    public synchronized boolean isPondering() {
+        return ponderer != null && ponderer.isAlive();
+    }
+
+    /**
+     * Stops pondering, if it is running, and waits for the background thread to finish.
+     *
+     * @return about how many iterations were spent pondering
+     */
+    public synchronized long stopPondering() {
+        if (ponderer == null) {
+            return 0;
+        }
+        SearchBudget budget = running;
+        budget.stop();
+        try {
+            ponderer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stopping the ponder thread", e);
+        } finally {
+            ponderer = null;
+            running = null;
+        }
+
+        RuntimeException failure = ponderFailure;
+        if (failure != null) {
+            ponderFailure = null;
+            throw new IllegalStateException("Pondering failed", failure);
+        }
+        return budget.getIterations();
+    }
+
+    /**
+     * The most visited action from the current position, or null if it has not been searched.
+     * Can be called while a search is running.
+     */
+    public ActionType getBestAction() {
+        return MCTS.mostVisitedAction(root);
+    }
+
+    /**
+     * Plays {@code action} from the current position, keeping the subtree below it. Stops
+     * pondering first, so everything it searched under {@code action} is kept.
+     */
+    public void advance(ActionType action) {
+        stopPondering();
+        root = promote(root, action, table);
+    }
+
+    /**
+     * The child of {@code root} reached by {@code action}, detached from the rest of the tree so
+     * that can be garbage collected; a new node if the action was never expanded. A transposition
+     * table is refilled with the kept nodes only.
+     */
+    static <ActionType extends Comparable> Node<ActionType> promote(Node<ActionType> root, ActionType action,
+                                                                    TranspositionTable<ActionType> table) {
+        Node<ActionType> child = root.children.get(action);
+        if (child == null) {
+            child = new Node<>(root.state.takeAction(action), null, root.isConcurrent());
+        }
+        child.parent = null;
+        if (table != null) {
+            table.clear();
+            keepSubtree(child, table);
+        }
+        return child;
+    }
+
+    /**
+     * Puts every node under {@code root} back in the table. A shared node's parent may have been
+     * dropped, so it is re-linked to the first kept parent that reaches it.
+     */
+    private static <ActionType extends Comparable> void keepSubtree(Node<ActionType> root,
+                                                                    TranspositionTable<ActionType> table) {
+        Set<Node<ActionType>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node<ActionType>> pending = new ArrayDeque<>();
+        seen.add(root);
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node<ActionType> node = pending.pop();
+            table.putIfAbsent(node.state.positionKey(), node);
+            for (Node<ActionType> child : node.children.values()) {
+                if (seen.add(child)) {
+                    child.parent = node;
+                    pending.push(child);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Random access to the shards written by {@link ShardedTrainingDataWriter}. The index locates the
+ * chunk holding a record, which is read and inflated; the most recently inflated chunk is kept, so
+ * reading records in order inflates each chunk once.
+ */
+public class ShardedTrainingDataReader implements Closeable {
+    private final Path directory;
+    private final String prefix;
+    private final int rows;
+    private final int cols;
+    private final int policySize;
+    private final int recordBytes;
+
+    private final int[] chunkShards;
+    private final long[] chunkOffsets;
+    private final int[] chunkLengths;
+    private final int[] chunkRecords;
+    private final long[] chunkFirstRecords;
+    private final long count;
+
+    private final Map<Integer, FileChannel> shards = new HashMap<>();
+    private final Inflater inflater = new Inflater();
+    private int cachedChunk = -1;
+    private ByteBuffer cachedRecords;
+
+    public ShardedTrainingDataReader(Path directory, String prefix) throws IOException {
+        this.directory = directory;
+        this.prefix = prefix;
+        try (FileChannel index = FileChannel.open(ShardedTrainingDataWriter.indexPath(directory, prefix),
+                StandardOpenOption.READ)) {
+            ByteBuffer contents = ByteBuffer.allocate((int) index.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (contents.hasRemaining() && index.read(contents) >= 0) {
+                // read the whole index
+            }
+            contents.flip();
+            if (contents.remaining() < TrainingDataWriter.HEADER_BYTES
+                    || contents.getInt() != ShardedTrainingDataWriter.INDEX_MAGIC
+                    || contents.getInt() != TrainingDataWriter.VERSION) {
+                throw new IOException("Not a training data index: " + directory + "/" + prefix);
+            }
+            rows = contents.getInt();
+            cols = contents.getInt();
+            policySize = contents.getInt();
+            recordBytes = TrainingDataWriter.recordBytes(rows * cols, policySize, contents.getInt());
+            contents.getLong();
+
+            // An index cut short by a crash ends at its last complete entry
+            int chunks = contents.remaining() / ShardedTrainingDataWriter.INDEX_ENTRY_BYTES;
+            chunkShards = new int[chunks];
+            chunkOffsets = new long[chunks];
+            chunkLengths = new int[chunks];
+            chunkRecords = new int[chunks];
+            chunkFirstRecords = new long[chunks];
+            for (int i = 0; i < chunks; i++) {
+                chunkShards[i] = contents.getInt();
+                chunkOffsets[i] = contents.getLong();
+                chunkLengths[i] = contents.getInt();
+                chunkRecords[i] = contents.getInt();
+                chunkFirstRecords[i] = contents.getLong();
+            }
+            count = chunks == 0 ? 0 : chunkFirstRecords[chunks - 1] + chunkRecords[chunks - 1];
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getPolicySize() {
+        return policySize;
+    }
+
+    public synchronized <ActionType> TrainingExample<ActionType> get(long index) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        int chunk = Arrays.binarySearch(chunkFirstRecords, index);
+        if (chunk < 0) {
+            chunk = -chunk - 2;
+        }
+        if (chunk != cachedChunk) {
+            cachedRecords = inflate(chunk);
+            cachedChunk = chunk;
+        }
+        int offset = (int) (index - chunkFirstRecords[chunk]) * recordBytes;
+        return TrainingDataReader.decode(cachedRecords, offset, rows, cols, policySize, 2);
+    }
+
+    private ByteBuffer inflate(int chunk) throws IOException {
+        FileChannel shard = shards.get(chunkShards[chunk]);
+        if (shard == null) {
+            shard = FileChannel.open(ShardedTrainingDataWriter.shardPath(directory, prefix, chunkShards[chunk]),
+                    StandardOpenOption.READ);
+            shards.put(chunkShards[chunk], shard);
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(chunkLengths[chunk]);
+        long position = chunkOffsets[chunk];
+        while (compressed.hasRemaining()) {
+            int read = shard.read(compressed, position);
+            if (read < 0) {
+                throw new IOException("Shard " + chunkShards[chunk] + " is shorter than its index");
+            }
+            position += read;
+        }
+        compressed.flip();
+
+        byte[] records = new byte[chunkRecords[chunk] * recordBytes];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int length = 0;
+            while (length < records.length && !inflater.finished()) {
+                length += inflater.inflate(records, length, records.length - length);
+                if (inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (length != records.length) {
+                throw new IOException("Chunk " + chunk + " inflated to " + length + " bytes, expected " + records.length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk " + chunk, e);
+        }
+        return ByteBuffer.wrap(records).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        inflater.end();
+        for (FileChannel shard : shards.values()) {
+            shard.close();
+        }
+        shards.clear();
+    }
+}
@@ -0,0 +1,279 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Writes training examples to a rotating set of compressed shard files, for runs too large for a
+ * single file.
+ *
+ * Records use the layout of {@link TrainingDataWriter}, with float16 policies. They are collected
+ * into chunks of {@code recordsPerChunk}; each full chunk is deflated and appended to the current
+ * shard {@code <prefix>-NNNNN.ritz} on a background thread, so callers normally only copy bytes.
+ * At most {@link #MAX_PENDING_CHUNKS} full chunks wait for that thread; if the disk falls further
+ * behind, writers block until a chunk is written. This keeps memory bounded at a few chunks, at
+ * the cost of slowing a self-play sink down to the disk's pace. A new shard is started once the
+ * current one would exceed {@code maxRecordsPerShard} records or {@code maxShardBytes} bytes.
+ * <pre>
+ * shard:  32 byte header (magic "RITZ"), then chunks of deflated records
+ * index:  32 byte header (magic "RITI") in {@code <prefix>.index}, then one 28 byte entry per chunk:
+ *         int32 shard, int64 offset, int32 compressedBytes, int32 records, int64 firstRecord
+ * </pre>
+ * All values are little-endian. Read the shards back with {@link ShardedTrainingDataReader}.
+ */
+public class ShardedTrainingDataWriter implements Closeable {
+    static final int SHARD_MAGIC = 0x5A544952;  // "RITZ"
+    static final int INDEX_MAGIC = 0x49544952;  // "RITI"
+    static final int INDEX_ENTRY_BYTES = 28;
+    static final int MAX_PENDING_CHUNKS = 4;
+
+    private final Path directory;
+    private final String prefix;
+    private final int rows;
+    private final int cols;
+    private final int policySize;
+    private final int recordsPerChunk;
+    private final long maxRecordsPerShard;
+    private final long maxShardBytes;
+    private final int recordBytes;
+
+    // Chunk being filled by callers, guarded by this
+    private ByteBuffer chunk;
+    private int chunkRecords;
+    private long count;
+    private boolean closed;
+
+    // Owned by the background thread
+    private final ExecutorService io;
+    private final Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressed = new byte[0];
+    private final FileChannel index;
+    private FileChannel shard;
+    private int shardNumber = -1;
+    private long shardRecords;
+    private long shardBytes;
+    private long chunkFirstRecord;
+    private volatile IOException failure;
+
+    public ShardedTrainingDataWriter(Path directory, String prefix, int rows, int cols, int policySize) throws IOException {
+        this(directory, prefix, rows, cols, policySize, 4096, 1_000_000, 256L << 20);
+    }
+
+    public ShardedTrainingDataWriter(Path directory, String prefix, int rows, int cols, int policySize,
+                                     int recordsPerChunk, long maxRecordsPerShard, long maxShardBytes) throws IOException {
+        if (recordsPerChunk < 1 || maxRecordsPerShard < recordsPerChunk) {
+            throw new IllegalArgumentException("Shards must hold at least one chunk of at least one record");
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.rows = rows;
+        this.cols = cols;
+        this.policySize = policySize;
+        this.recordsPerChunk = recordsPerChunk;
+        this.maxRecordsPerShard = maxRecordsPerShard;
+        this.maxShardBytes = maxShardBytes;
+        this.recordBytes = TrainingDataWriter.recordBytes(rows * cols, policySize, 2);
+        this.chunk = newChunk();
+
+        Files.createDirectories(directory);
+        this.index = FileChannel.open(indexPath(directory, prefix), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(index, header(INDEX_MAGIC));
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "training-data-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static Path indexPath(Path directory, String prefix) {
+        return directory.resolve(prefix + ".index");
+    }
+
+    static Path shardPath(Path directory, String prefix, int shard) {
+        return directory.resolve(String.format("%s-%05d.ritz", prefix, shard));
+    }
+
+    private ByteBuffer newChunk() {
+        return ByteBuffer.allocate(recordsPerChunk * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private ByteBuffer header(int magic) {
+        ByteBuffer header = ByteBuffer.allocate(TrainingDataWriter.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        TrainingDataWriter.putHeader(header, magic, rows, cols, policySize, true);
+        return header.flip();
+    }
+
+    /**
+     * Queues {@code example}. Does no I/O, but blocks while {@link #MAX_PENDING_CHUNKS} chunks are
+     * waiting to be written; an error from an earlier background write is rethrown here as an
+     * UncheckedIOException.
+     */
+    public synchronized void write(TrainingExample<?> example) {
+        checkOpen();
+        TrainingDataWriter.encode(example, chunk, rows, cols, policySize, true);
+        count++;
+        if (++chunkRecords == recordsPerChunk) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Queues a whole game; usable as a self-play sink.
+     */
+    public synchronized void writeAll(List<? extends TrainingExample<?>> examples) {
+        for (TrainingExample<?> example : examples) {
+            write(example);
+        }
+    }
+
+    /**
+     * Hands the partly filled chunk to the background thread without waiting for it to be written;
+     * like {@link #write}, it may wait for room in the queue.
+     */
+    public synchronized void flush() {
+        checkOpen();
+        if (chunkRecords > 0) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Number of examples queued so far.
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Training data writer is closed");
+        }
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void submitChunk() {
+        ByteBuffer full = chunk.flip();
+        int records = chunkRecords;
+        chunkRecords = 0;
+        // Wait for the disk before allocating another chunk, so memory stays bounded
+        pendingChunks.acquireUninterruptibly();
+        chunk = newChunk();
+        io.execute(() -> {
+            try {
+                if (failure == null) {
+                    writeChunk(full, records);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                pendingChunks.release();
+            }
+        });
+    }
+
+    private void writeChunk(ByteBuffer records, int recordCount) throws IOException {
+        deflater.reset();
+        deflater.setInput(records);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, Math.max(1 << 16, compressed.length * 2));
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        if (shard == null || shardRecords + recordCount > maxRecordsPerShard
+                || (shardRecords > 0 && shardBytes + length > maxShardBytes)) {
+            rollShard();
+        }
+        long offset = shardBytes;
+        writeFully(shard, ByteBuffer.wrap(compressed, 0, length));
+        shardBytes += length;
+        shardRecords += recordCount;
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(shardNumber)
+                .putLong(offset)
+                .putInt(length)
+                .putInt(recordCount)
+                .putLong(chunkFirstRecord);
+        writeFully(index, entry.flip());
+        chunkFirstRecord += recordCount;
+    }
+
+    private void rollShard() throws IOException {
+        if (shard != null) {
+            shard.close();
+        }
+        shardNumber++;
+        shard = FileChannel.open(shardPath(directory, prefix, shardNumber), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(shard, header(SHARD_MAGIC));
+        shardBytes = TrainingDataWriter.HEADER_BYTES;
+        shardRecords = 0;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the remaining examples and waits for the background thread to finish. Throws the
+     * first error any background write ran into.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (chunkRecords > 0) {
+                submitChunk();
+            }
+            closed = true;
+        }
+        io.shutdown();
+        try {
+            while (!io.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting; queued chunks must reach the disk
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing training data", e);
+        } finally {
+            deflater.end();
+            try {
+                if (shard != null) {
+                    shard.close();
+                }
+            } finally {
+                index.close();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
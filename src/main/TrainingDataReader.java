@@ -0,0 +1,147 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Random access to a file written by {@link TrainingDataWriter} through memory mappings. A single
+ * mapping is limited to 2 GB, so large files are mapped in segments of whole records.
+ *
+ * The record count comes from the file length, so a file whose writer was not closed can still
+ * be read up to its last complete record. Reads are thread-safe.
+ */
+public class TrainingDataReader implements Closeable {
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int boardSize;
+    private final int policySize;
+    private final int policyBytes;
+    private final int recordBytes;
+    private final long count;
+    private final int recordsPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    public TrainingDataReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(TrainingDataWriter.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Truncated training data header: " + path);
+            }
+        }
+        header.flip();
+        if (header.getInt() != TrainingDataWriter.MAGIC || header.getInt() != TrainingDataWriter.VERSION) {
+            channel.close();
+            throw new IOException("Not a training data file: " + path);
+        }
+        rows = header.getInt();
+        cols = header.getInt();
+        boardSize = rows * cols;
+        policySize = header.getInt();
+        policyBytes = header.getInt();
+        recordBytes = TrainingDataWriter.recordBytes(boardSize, policySize, policyBytes);
+
+        count = (channel.size() - TrainingDataWriter.HEADER_BYTES) / recordBytes;
+        recordsPerSegment = Integer.MAX_VALUE / recordBytes;
+        int segmentCount = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            long first = (long) s * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, count - first);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    TrainingDataWriter.HEADER_BYTES + first * recordBytes, records * recordBytes);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getPolicySize() {
+        return policySize;
+    }
+
+    private MappedByteBuffer segment(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        return segments[(int) (index / recordsPerSegment)];
+    }
+
+    private int offset(long index) {
+        return (int) (index % recordsPerSegment) * recordBytes;
+    }
+
+    public void board(long index, byte[] target) {
+        // Absolute gets leave the shared buffer position alone, so concurrent readers are safe
+        segment(index).get(offset(index), target, 0, boardSize);
+    }
+
+    public int currentPlayer(long index) {
+        return segment(index).get(offset(index) + boardSize);
+    }
+
+    public float value(long index) {
+        return segment(index).getFloat(offset(index) + boardSize + 1);
+    }
+
+    public void policy(long index, float[] target) {
+        MappedByteBuffer segment = segment(index);
+        int position = offset(index) + boardSize + 5;
+        for (int i = 0; i < policySize; i++, position += policyBytes) {
+            target[i] = policyBytes == 2 ? Float16.toFloat(segment.getShort(position)) : segment.getFloat(position);
+        }
+    }
+
+    public <ActionType> TrainingExample<ActionType> get(long index) {
+        return decode(segment(index), offset(index), rows, cols, policySize, policyBytes);
+    }
+
+    /**
+     * The record starting at {@code offset} in {@code buffer}, which must be little-endian.
+     */
+    static <ActionType> TrainingExample<ActionType> decode(ByteBuffer buffer, int offset, int rows, int cols,
+                                                           int policySize, int policyBytes) {
+        int[][] board = new int[rows][cols];
+        int position = offset;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                board[r][c] = buffer.get(position++);
+            }
+        }
+        int currentPlayer = buffer.get(position++);
+        float value = buffer.getFloat(position);
+        position += 4;
+        List<Double> policy = new ArrayList<>(policySize);
+        for (int i = 0; i < policySize; i++, position += policyBytes) {
+            policy.add((double) (policyBytes == 2 ? Float16.toFloat(buffer.getShort(position)) : buffer.getFloat(position)));
+        }
+        return new TrainingExample<>(board, policy, value, currentPlayer);
+    }
+
+    /**
+     * Closes the file. The mappings stay valid until they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,131 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes training examples as fixed-size binary records, readable with random access through
+ * {@link TrainingDataReader}. All values are little-endian so the file can also be memory-mapped
+ * directly by numpy.
+ * <pre>
+ * header (32 bytes): int32 magic "RITD", int32 version, int32 rows, int32 cols,
+ *                    int32 policySize, int32 policyBytes (2 = float16, 4 = float32), 8 reserved bytes
+ * record:            int8[rows * cols] board, int8 currentPlayer, float32 value,
+ *                    float16 or float32[policySize] policy
+ * </pre>
+ * Records are staged in a direct buffer and written through a FileChannel, without any text
+ * formatting.
+ */
+public class TrainingDataWriter implements Closeable {
+    static final int MAGIC = 0x44544952;  // "RITD" read as little-endian bytes
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * Header fields shared with {@link ShardedTrainingDataWriter}, which uses its own magic numbers.
+     */
+    static void putHeader(ByteBuffer buffer, int magic, int rows, int cols, int policySize, boolean halfPrecision) {
+        buffer.putInt(magic)
+                .putInt(VERSION)
+                .putInt(rows)
+                .putInt(cols)
+                .putInt(policySize)
+                .putInt(halfPrecision ? 2 : 4)
+                .putLong(0L);
+    }
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int policySize;
+    private final boolean halfPrecision;
+    private final int recordBytes;
+    private final ByteBuffer buffer;
+    private long count;
+
+    public TrainingDataWriter(Path path, int rows, int cols, int policySize, boolean halfPrecision) throws IOException {
+        this.rows = rows;
+        this.cols = cols;
+        this.policySize = policySize;
+        this.halfPrecision = halfPrecision;
+        this.recordBytes = recordBytes(rows * cols, policySize, halfPrecision ? 2 : 4);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1 << 16, recordBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        putHeader(buffer, MAGIC, rows, cols, policySize, halfPrecision);
+    }
+
+    static int recordBytes(int boardSize, int policySize, int policyBytes) {
+        return boardSize + 1 + 4 + policySize * policyBytes;
+    }
+
+    public void write(TrainingExample<?> example) throws IOException {
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+        encode(example, buffer, rows, cols, policySize, halfPrecision);
+        count++;
+    }
+
+    /**
+     * Appends {@code example} to {@code buffer} as one record.
+     */
+    static void encode(TrainingExample<?> example, ByteBuffer buffer, int rows, int cols, int policySize,
+                       boolean halfPrecision) {
+        if (example.board.length != rows || (rows > 0 && example.board[0].length != cols)) {
+            throw new IllegalArgumentException("Board is not " + rows + "x" + cols);
+        }
+        if (example.policy.size() != policySize) {
+            throw new IllegalArgumentException("Policy has " + example.policy.size() + " entries, expected " + policySize);
+        }
+
+        for (int[] row : example.board) {
+            for (int cell : row) {
+                buffer.put((byte) cell);
+            }
+        }
+        buffer.put((byte) example.current_player);
+        buffer.putFloat((float) example.value);
+        for (Double probability : example.policy) {
+            if (halfPrecision) {
+                buffer.putShort(Float16.fromFloat(probability.floatValue()));
+            } else {
+                buffer.putFloat(probability.floatValue());
+            }
+        }
+    }
+
+    public void writeAll(List<? extends TrainingExample<?>> examples) throws IOException {
+        for (TrainingExample<?> example : examples) {
+            write(example);
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
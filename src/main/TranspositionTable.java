@@ -0,0 +1,155 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded table from {@link GameState#positionKey()} to search nodes, so that move orders reaching
+ * the same position share one {@link Node} and its statistics. With a table the search tree
+ * becomes a directed acyclic graph, or for games with repetitions such as chess, a graph that
+ * may contain cycles.
+ *
+ * Open addressing in buckets of {@link #BUCKET_SIZE} slots: a key lives in its own bucket only.
+ * Lookups are lock-free; inserts lock the bucket's stripe. When a bucket is full the node with the
+ * fewest visits is replaced, which only loses sharing: the replaced node stays in the tree.
+ */
+public class TranspositionTable<ActionType extends Comparable> {
+    static final int BUCKET_SIZE = 4;
+    private static final int STRIPES = 64;
+
+    private static final class Entry<ActionType extends Comparable> {
+        final long key;
+        final Node<ActionType> node;
+
+        Entry(long key, Node<ActionType> node) {
+            this.key = key;
+            this.node = node;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry<ActionType>> slots;
+    private final int bucketMask;
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder replacements = new LongAdder();
+
+    /**
+     * @param capacity maximum number of positions, rounded up to a power of two of at least one bucket
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        int slotCount = BUCKET_SIZE;
+        while (slotCount < capacity) {
+            slotCount <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.bucketMask = slotCount / BUCKET_SIZE - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private int bucket(long key) {
+        // Keys such as the tic-tac-toe encoding are small integers, so spread their bits first
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & bucketMask;
+    }
+
+    public Node<ActionType> get(long key) {
+        int first = bucket(key) * BUCKET_SIZE;
+        for (int slot = first; slot < first + BUCKET_SIZE; slot++) {
+            Entry<ActionType> entry = slots.get(slot);
+            if (entry != null && entry.key == key) {
+                return entry.node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The node already stored for {@code key}, or {@code node} after storing it.
+     */
+    public Node<ActionType> putIfAbsent(long key, Node<ActionType> node) {
+        int bucket = bucket(key);
+        int first = bucket * BUCKET_SIZE;
+        synchronized (locks[bucket % STRIPES]) {
+            for (int slot = first; slot < first + BUCKET_SIZE; slot++) {
+                Entry<ActionType> entry = slots.get(slot);
+                if (entry != null && entry.key == key) {
+                    hits.increment();
+                    return entry.node;
+                }
+            }
+
+            // An empty slot if there is one, otherwise the least visited node
+            int victim = first;
+            for (int slot = first; slot < first + BUCKET_SIZE; slot++) {
+                Entry<ActionType> entry = slots.get(slot);
+                if (entry == null) {
+                    victim = slot;
+                    break;
+                }
+                if (entry.node.visitCount < slots.get(victim).node.visitCount) {
+                    victim = slot;
+                }
+            }
+
+            if (slots.get(victim) == null) {
+                size.incrementAndGet();
+            } else {
+                replacements.increment();
+            }
+            slots.set(victim, new Entry<>(key, node));
+            return node;
+        }
+    }
+
+    /**
+     * Node for {@code state}, creating it with {@code parent} if the position is new.
+     */
+    Node<ActionType> getOrCreate(GameState<ActionType> state, Node<ActionType> parent) {
+        long key = state.positionKey();
+        Node<ActionType> existing = get(key);
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+        return putIfAbsent(key, new Node<>(state, parent));
+    }
+
+    /**
+     * Removes every entry. Not safe to call while a search is using the table.
+     */
+    public void clear() {
+        for (int slot = 0; slot < slots.length(); slot++) {
+            slots.set(slot, null);
+        }
+        size.set(0);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Number of times a position was found already in the table when expanding.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getReplacements() {
+        return replacements.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable(size=%d, hits=%d, replacements=%d)", size(), getHits(), getReplacements());
+    }
+}
@@ -0,0 +1,26 @@
+package main;
+
+/**
+ * Inner loops of {@link LocalNeuralNetwork}. {@link #INSTANCE} uses the Java Vector API when the
+ * JVM was started with {@code --add-modules jdk.incubator.vector}, and plain loops otherwise.
+ */
+interface VectorOps {
+    VectorOps INSTANCE = create();
+
+    /**
+     * Sum of {@code a[aOffset + i] * b[bOffset + i]} for i in [0, length).
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    private static VectorOps create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so that the incubator classes are only linked when present
+                return (VectorOps) Class.forName("main.SimdVectorOps").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar loops
+            }
+        }
+        return new ScalarVectorOps();
+    }
+}
@@ -1,12 +1,17 @@
 package tictac;
 
+import main.BoardSymmetry;
 import main.GameState;
+import main.PlayoutBoard;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class TicTacToeState implements GameState<Integer> {
+    // Rotations and reflections of the board; actions are cell indices, so they map the same way
+    private static final List<BoardSymmetry> SYMMETRIES = BoardSymmetry.dihedral(3).subList(1, 8);
+
     private final char[] board; // 'X', 'O', or ' ' for empty
     private final int currentPlayer; // 0 = X, 1 = O
 
@@ -37,6 +42,11 @@ public class TicTacToeState implements GameState<Integer> {
         return converted;
     }
 
+    @Override
+    public List<BoardSymmetry> getSymmetries() {
+        return SYMMETRIES;
+    }
+
     @Override
     public int getMaximumPlays() {
         int initialEmptyCells = 0;
@@ -74,6 +84,28 @@ public class TicTacToeState implements GameState<Integer> {
         return actions;
     }
 
+    @Override
+    public int actionIndex(Integer action) {
+        return action;
+    }
+
+    @Override
+    public Integer actionAt(int index) {
+        return index;
+    }
+
+    /**
+     * Exact encoding: one base-3 digit per cell, followed by the player to move.
+     */
+    @Override
+    public long positionKey() {
+        long key = 0;
+        for (char c : board) {
+            key = key * 3 + (c == 'X' ? 1 : c == 'O' ? 2 : 0);
+        }
+        return key * 2 + currentPlayer;
+    }
+
     @Override
     public GameState<Integer> takeAction(Integer action) {
         char[] newBoard = Arrays.copyOf(board, board.length);
@@ -93,23 +125,32 @@ public class TicTacToeState implements GameState<Integer> {
         return (winner == player) ? 1.0 : -1.0;
     }
 
+    @Override
+    public PlayoutBoard newPlayoutBoard() {
+        return new Playout();
+    }
+
     // Helper methods
     public int getWinner() {
+        return winner(board);
+    }
+
+    private static int winner(char[] board) {
         // Check rows
         for (int i = 0; i < 3; i++) {
-            if (checkTriple(i*3, i*3+1, i*3+2)) {
+            if (checkTriple(board, i*3, i*3+1, i*3+2)) {
                 return board[i*3] == 'X' ? 0 : 1;
             }
         }
         // Check columns
         for (int i = 0; i < 3; i++) {
-            if (checkTriple(i, i+3, i+6)) {
+            if (checkTriple(board, i, i+3, i+6)) {
                 return board[i] == 'X' ? 0 : 1;
             }
         }
         // Check diagonals
-        if (checkTriple(0, 4, 8)) return board[0] == 'X' ? 0 : 1;
-        if (checkTriple(2, 4, 6)) return board[2] == 'X' ? 0 : 1;
+        if (checkTriple(board, 0, 4, 8)) return board[0] == 'X' ? 0 : 1;
+        if (checkTriple(board, 2, 4, 6)) return board[2] == 'X' ? 0 : 1;
         return -1; // No winner
     }
 
@@ -134,17 +175,78 @@ public class TicTacToeState implements GameState<Integer> {
         return currentPlayer == 0 ? "X": "0";
     }
 
-    private boolean checkTriple(int a, int b, int c) {
+    private static boolean checkTriple(char[] board, int a, int b, int c) {
         return board[a] != ' ' && board[a] == board[b] && board[a] == board[c];
     }
 
     private boolean isBoardFull() {
+        return isFull(board);
+    }
+
+    private static boolean isFull(char[] board) {
         for (char c : board) {
             if (c == ' ') return false;
         }
         return true;
     }
 
+    /**
+     * Playout board over the same cells; actions are cell indices as for the state.
+     */
+    private static final class Playout implements PlayoutBoard {
+        private final char[] board = new char[9];
+        private int currentPlayer;
+
+        @Override
+        public boolean load(GameState<?> state) {
+            if (!(state instanceof TicTacToeState ticTacToe)) {
+                return false;
+            }
+            System.arraycopy(ticTacToe.board, 0, board, 0, board.length);
+            currentPlayer = ticTacToe.currentPlayer;
+            return true;
+        }
+
+        @Override
+        public int getActionCount() {
+            return 9;
+        }
+
+        @Override
+        public int legalActions(int[] actions) {
+            int count = 0;
+            for (int i = 0; i < 9; i++) {
+                if (board[i] == ' ') {
+                    actions[count++] = i;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void play(int action) {
+            board[action] = (currentPlayer == 0) ? 'X' : 'O';
+            currentPlayer = 1 - currentPlayer;
+        }
+
+        @Override
+        public boolean isTerminal() {
+            return winner(board) != -1 || isFull(board);
+        }
+
+        @Override
+        public int getCurrentPlayer() {
+            return currentPlayer;
+        }
+
+        @Override
+        public double getReward(int player) {
+            int winner = winner(board);
+            if (winner == -1) return 0.0; // Draw
+            return (winner == player) ? 1.0 : -1.0;
+        }
+    }
+
     // Utility methods for display
     @Override
     public String toString() {
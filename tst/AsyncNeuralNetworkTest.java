@@ -0,0 +1,121 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import main.AsyncNeuralNetwork;
+import main.NeuralNetworkOutput;
+import main.TrainingExample;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncNeuralNetworkTest {
+    private static final String OUTPUT = "{\"policy\": [0.25, 0.75], \"value\": 0.5}";
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    private final ExecutorService serverThreads = Executors.newFixedThreadPool(8);
+
+    private HttpServer startServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/predict", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                respond(exchange, OUTPUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        server.createContext("/predict_batch", exchange -> respond(exchange, "[" + OUTPUT + ", " + OUTPUT + "]"));
+        server.setExecutor(serverThreads);
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static TrainingExample<Integer> example() {
+        return new TrainingExample<>(new int[3][3], null, 0, 1);
+    }
+
+    @Test
+    public void predictsSinglesAndBatches() throws IOException {
+        HttpServer server = startServer();
+        try (AsyncNeuralNetwork<Integer> nn = new AsyncNeuralNetwork<>(url(server), 4, AsyncNeuralNetwork.Protocol.HTTP_1_1)) {
+            NeuralNetworkOutput<Integer> output = nn.predict(example());
+            assertEquals(0.5, output.valueHead, 0.0);
+            assertEquals(0.75, output.policyHead.get(1), 0.0);
+
+            List<NeuralNetworkOutput<Integer>> outputs = nn.predictBatch(List.of(example(), example()));
+            assertEquals(2, outputs.size());
+            assertEquals(0.25, outputs.get(1).policyHead.get(0), 0.0);
+        } finally {
+            server.stop(0);
+            serverThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void capsRequestsInFlight() throws IOException {
+        HttpServer server = startServer();
+        try (AsyncNeuralNetwork<Integer> nn = new AsyncNeuralNetwork<>(url(server), 2, AsyncNeuralNetwork.Protocol.HTTP_1_1)) {
+            List<CompletableFuture<NeuralNetworkOutput<Integer>>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                futures.add(nn.predictAsync(example()));
+            }
+            for (CompletableFuture<NeuralNetworkOutput<Integer>> future : futures) {
+                assertEquals(0.5, future.join().valueHead, 0.0);
+            }
+            assertTrue("max in flight " + maxActive.get(), maxActive.get() <= 2);
+        } finally {
+            server.stop(0);
+            serverThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void chainsRequestsFromCallbacks() throws Exception {
+        HttpServer server = startServer();
+        try (AsyncNeuralNetwork<Integer> nn = new AsyncNeuralNetwork<>(url(server), 1, AsyncNeuralNetwork.Protocol.HTTP_1_1)) {
+            // With the only permit taken, the follow-up requests are posted from the I/O thread
+            List<CompletableFuture<NeuralNetworkOutput<Integer>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(nn.predictAsync(example()).thenCompose(output -> nn.predictAsync(example())));
+            }
+            for (CompletableFuture<NeuralNetworkOutput<Integer>> future : futures) {
+                assertEquals(0.5, future.get(10, TimeUnit.SECONDS).valueHead, 0.0);
+            }
+            assertEquals(1, maxActive.get());
+        } finally {
+            server.stop(0);
+            serverThreads.shutdown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import main.BatchingNeuralNetwork;
+import main.NeuralNetworkOutput;
+import main.TrainingExample;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchingNeuralNetworkTest {
+
+    /**
+     * Answers every input with its current player as the value, and records batch sizes.
+     */
+    private static class EchoNetwork extends BatchingNeuralNetwork<Integer> {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        EchoNetwork(int maxBatchSize, long maxWaitMillis) {
+            super(maxBatchSize, maxWaitMillis);
+        }
+
+        @Override
+        public List<NeuralNetworkOutput<Integer>> predictBatch(List<TrainingExample<Integer>> inputs) {
+            batchSizes.add(inputs.size());
+            List<NeuralNetworkOutput<Integer>> outputs = new ArrayList<>();
+            for (TrainingExample<Integer> input : inputs) {
+                NeuralNetworkOutput<Integer> output = new NeuralNetworkOutput<>();
+                output.valueHead = input.current_player;
+                outputs.add(output);
+            }
+            return outputs;
+        }
+    }
+
+    @Test
+    public void groupsConcurrentPredictionsIntoBatches() {
+        EchoNetwork nn = new EchoNetwork(8, 200);
+        List<CompletableFuture<NeuralNetworkOutput<Integer>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(nn.submit(new TrainingExample<>(new int[0][], null, 0, i)));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, futures.get(i).join().valueHead, 0.0);
+        }
+        nn.close();
+
+        int total = 0;
+        for (int size : nn.batchSizes) {
+            assertTrue(size <= 8);
+            total += size;
+        }
+        assertEquals(20, total);
+        assertTrue(nn.batchSizes.size() < 20);
+    }
+}
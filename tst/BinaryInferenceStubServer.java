@@ -0,0 +1,108 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Local server speaking the binary protocol of {@link main.BinaryNeuralNetwork}, for tests.
+ *
+ * For each board it answers a value of half the current player and a policy spread evenly over
+ * the empty cells. After {@link #corruptNextResponse()} the next answer claims a policy longer
+ * than its frame.
+ */
+public class BinaryInferenceStubServer implements AutoCloseable {
+    private final ServerSocketChannel server;
+    private final Thread acceptor;
+    private volatile boolean corruptNext;
+
+    public BinaryInferenceStubServer(SocketAddress bindAddress) throws IOException {
+        server = ServerSocketChannel.open(bindAddress instanceof InetSocketAddress
+                ? StandardProtocolFamily.INET : StandardProtocolFamily.UNIX);
+        server.bind(bindAddress);
+        acceptor = new Thread(this::acceptLoop, "binary-inference-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public SocketAddress getAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    public void corruptNextResponse() {
+        corruptNext = true;
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                Thread handler = new Thread(() -> serve(client));
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            // Server closed
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            while (readFully(client, length.clear())) {
+                ByteBuffer request = ByteBuffer.allocate(length.flip().getInt());
+                if (!readFully(client, request)) {
+                    return;
+                }
+                request.flip();
+                ByteBuffer response = respond(request);
+                while (response.hasRemaining()) {
+                    client.write(response);
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private ByteBuffer respond(ByteBuffer request) {
+        int count = request.getInt();
+        ByteBuffer response = ByteBuffer.allocate(1 << 16);
+        response.putInt(0).putInt(count);
+        for (int i = 0; i < count; i++) {
+            int currentPlayer = request.getInt();
+            int cells = request.getInt() * request.getInt();
+            float[] board = new float[cells];
+            int empty = 0;
+            for (int c = 0; c < cells; c++) {
+                board[c] = request.getFloat();
+                if (board[c] == 0) {
+                    empty++;
+                }
+            }
+            response.putFloat(currentPlayer * 0.5f).putInt(corruptNext ? cells + 1 : cells);
+            for (int c = 0; c < cells; c++) {
+                response.putFloat(board[c] == 0 ? 1.0f / empty : 0.0f);
+            }
+        }
+        response.putInt(0, response.position() - 4);
+        corruptNext = false;
+        return response.flip();
+    }
+
+    private static boolean readFully(SocketChannel channel, ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,83 @@
+import main.BinaryNeuralNetwork;
+import main.NeuralNetworkOutput;
+import main.TrainingExample;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryNeuralNetworkTest {
+
+    private TrainingExample<Integer> example(int currentPlayer, int... cells) {
+        int[][] board = new int[3][3];
+        for (int i = 0; i < 9; i++) {
+            board[i / 3][i % 3] = cells[i];
+        }
+        return new TrainingExample<>(board, null, 0, currentPlayer);
+    }
+
+    @Test
+    public void predictsOverTcp() throws Exception {
+        try (BinaryInferenceStubServer server = new BinaryInferenceStubServer(new InetSocketAddress("127.0.0.1", 0));
+             BinaryNeuralNetwork<Integer> nn = new BinaryNeuralNetwork<>(server.getAddress())) {
+            NeuralNetworkOutput<Integer> output = nn.predict(example(1, 1, -1, 0, 0, 0, 0, 0, 0, 0));
+            assertEquals(0.5, output.valueHead, 0.0);
+            assertArrayEquals(new float[]{0, 0, 1 / 7f, 1 / 7f, 1 / 7f, 1 / 7f, 1 / 7f, 1 / 7f, 1 / 7f}, output.policy, 1e-6f);
+            assertEquals(1 / 7.0, output.policyHead.get(2), 1e-6);
+            assertEquals(9, output.policyHead.size());
+            assertEquals(1.0, output.policyHead.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-6);
+
+            // The connection stays open for the next request
+            List<NeuralNetworkOutput<Integer>> outputs = nn.predictBatch(List.of(
+                    example(-1, 0, 0, 0, 0, 0, 0, 0, 0, 0),
+                    example(1, 1, 1, 1, 1, 1, 1, 1, 1, 0)));
+            assertEquals(2, outputs.size());
+            assertEquals(-0.5, outputs.get(0).valueHead, 0.0);
+            assertEquals(1.0, outputs.get(1).policyHead.get(8), 1e-6);
+        }
+    }
+
+    @Test
+    public void predictsOverUnixDomainSocket() throws Exception {
+        Path directory = Files.createTempDirectory("inference");
+        Path socket = directory.resolve("nn.sock");
+        try (BinaryInferenceStubServer server = new BinaryInferenceStubServer(UnixDomainSocketAddress.of(socket));
+             BinaryNeuralNetwork<Integer> nn = BinaryNeuralNetwork.unixSocket(socket)) {
+            assertEquals(UnixDomainSocketAddress.of(socket), server.getAddress());
+            NeuralNetworkOutput<Integer> output = nn.predict(example(-1, 0, 0, 0, 0, 1, 0, 0, 0, 0));
+            assertEquals(-0.5, output.valueHead, 0.0);
+            assertEquals(0.0, output.policyHead.get(4), 0.0);
+        } finally {
+            Files.deleteIfExists(socket);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void malformedResponseResetsTheConnection() throws Exception {
+        try (BinaryInferenceStubServer server = new BinaryInferenceStubServer(new InetSocketAddress("127.0.0.1", 0));
+             BinaryNeuralNetwork<Integer> nn = new BinaryNeuralNetwork<>(server.getAddress())) {
+            server.corruptNextResponse();
+            try {
+                nn.predict(example(1, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+                fail("Expected the malformed response to be rejected");
+            } catch (RuntimeException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+
+            // The next request starts on a fresh connection
+            NeuralNetworkOutput<Integer> output = nn.predict(example(-1, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+            assertEquals(-0.5, output.valueHead, 0.0);
+            assertEquals(1 / 9.0, output.policyHead.get(0), 1e-6);
+        }
+    }
+}
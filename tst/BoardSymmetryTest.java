@@ -0,0 +1,65 @@
+import chess.ChessGameState;
+import chess.ChessMove;
+import main.BoardSymmetry;
+import main.GameState;
+import main.TrainingExample;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoardSymmetryTest {
+
+    private <A> List<Double> uniformOverLegal(GameState<A> state) {
+        List<Double> policy = new ArrayList<>();
+        List<A> legal = state.getLegalActions();
+        for (A action : state.getAllActions()) {
+            policy.add(legal.contains(action) ? 1.0 / legal.size() : 0.0);
+        }
+        return policy;
+    }
+
+    @Test
+    public void ticTacToeHasEightDistinctSymmetriesMovingPolicyWithBoard() {
+        GameState<Integer> state = new TicTacToeState().takeAction(1).takeAction(0);
+        List<BoardSymmetry> symmetries = state.getSymmetries();
+        assertEquals(7, symmetries.size());
+
+        TrainingExample<Integer> example = new TrainingExample<>(state.convertBoard(), uniformOverLegal(state), 0.25, 1);
+        Set<String> boards = new HashSet<>();
+        boards.add(Arrays.deepToString(example.board));
+        for (BoardSymmetry symmetry : symmetries) {
+            TrainingExample<Integer> image = symmetry.apply(example);
+            boards.add(Arrays.deepToString(image.board));
+            assertEquals(0.25, image.value, 0.0);
+            // Probability mass stays on the empty cells
+            for (int cell = 0; cell < 9; cell++) {
+                boolean empty = image.board[cell / 3][cell % 3] == 0;
+                assertEquals(empty, image.policy.get(cell) > 0);
+            }
+        }
+        assertEquals(8, boards.size());
+    }
+
+    @Test
+    public void chessMirrorsOnlyWithoutCastlingRights() {
+        assertTrue(new ChessGameState().getSymmetries().isEmpty());
+
+        ChessGameState state = ChessGameState.fromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -");
+        ChessGameState mirrored = ChessGameState.fromFEN("8/5p2/4p3/r5PK/k1p3R1/8/1P1P4/8 w - -");
+        List<BoardSymmetry> symmetries = state.getSymmetries();
+        assertEquals(1, symmetries.size());
+
+        TrainingExample<ChessMove> image = symmetries.get(0).apply(
+                new TrainingExample<>(state.convertBoard(), uniformOverLegal(state), 0.0, 1));
+        assertTrue(Arrays.deepEquals(mirrored.convertBoard(), image.board));
+        assertEquals(uniformOverLegal(mirrored), image.policy);
+    }
+}
@@ -0,0 +1,95 @@
+import chess.ChessBoard;
+import chess.ChessMove;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChessBoardTest {
+
+    private long perft(ChessBoard board, int player, int depth) {
+        int[] moves = new int[256];
+        int count = board.getLegalMoves(player, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, 1 - player, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    @Test
+    public void perftStartingPosition() {
+        ChessBoard board = new ChessBoard();
+        assertEquals(20, perft(board, 0, 1));
+        assertEquals(400, perft(board, 0, 2));
+        assertEquals(8902, perft(board, 0, 3));
+        assertEquals(197281, perft(board, 0, 4));
+    }
+
+    @Test
+    public void perftCastlingAndPins() {
+        // "Kiwipete": castling through attacked squares, pins and en passant
+        ChessBoard board = ChessBoard.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        assertEquals(48, perft(board, 0, 1));
+        assertEquals(2039, perft(board, 0, 2));
+        assertEquals(97862, perft(board, 0, 3));
+    }
+
+    @Test
+    public void perftEnPassantDiscoveredCheck() {
+        // Rook and king on the same rank as the en passant pawns
+        ChessBoard board = ChessBoard.fromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -");
+        assertEquals(14, perft(board, 0, 1));
+        assertEquals(191, perft(board, 0, 2));
+        assertEquals(2812, perft(board, 0, 3));
+        assertEquals(43238, perft(board, 0, 4));
+    }
+
+    @Test
+    public void unmakeRestoresPosition() {
+        ChessBoard board = ChessBoard.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = board.toFEN();
+        perft(board, 0, 3);
+        assertEquals(fen, board.toFEN());
+    }
+
+    @Test
+    public void zobristKeyIsIncremental() {
+        ChessBoard board = ChessBoard.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[256];
+        int player = 0;
+        for (int ply = 0; ply < 40; ply++) {
+            int count = board.getLegalMoves(player, moves);
+            if (count == 0) {
+                break;
+            }
+            board.makeMove(moves[(ply * 7) % count]);
+            player = 1 - player;
+            assertEquals(ChessBoard.fromFEN(board.toFEN()).getZobristKey(), board.getZobristKey());
+        }
+    }
+
+    @Test
+    public void threefoldRepetitionIsDraw() {
+        ChessBoard board = new ChessBoard();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int round = 0; round < 2; round++) {
+            for (String move : shuffle) {
+                assertFalse(board.isDraw());
+                board.applyMove(parse(move));
+            }
+        }
+        // Starting position has now occurred three times
+        assertTrue(board.isDraw());
+    }
+
+    private ChessMove parse(String move) {
+        return new ChessMove('8' - move.charAt(1), move.charAt(0) - 'a', '8' - move.charAt(3), move.charAt(2) - 'a');
+    }
+}
@@ -0,0 +1,82 @@
+import main.EvaluationCache;
+import main.GameState;
+import main.NeuralNetworkOutput;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EvaluationCacheTest {
+
+    private List<GameState<Integer>> openings() {
+        // The nine positions after X's first move
+        List<GameState<Integer>> states = new ArrayList<>();
+        for (int cell = 0; cell < 9; cell++) {
+            states.add(new TicTacToeState().takeAction(cell));
+        }
+        return states;
+    }
+
+    private void checkEvictsToCapacity(EvaluationCache.Eviction eviction) {
+        EvaluationCache<Integer> cache = new EvaluationCache<>(4, eviction);
+        List<GameState<Integer>> states = openings();
+        for (GameState<Integer> state : states) {
+            cache.put(state, new NeuralNetworkOutput<>());
+        }
+        assertEquals(4, cache.size());
+        // The most recently inserted position is never the one evicted
+        assertNotNull(cache.get(states.get(8)));
+    }
+
+    @Test
+    public void lruEvictsLeastRecentlyUsed() {
+        checkEvictsToCapacity(EvaluationCache.Eviction.LRU);
+
+        EvaluationCache<Integer> cache = new EvaluationCache<>(2, EvaluationCache.Eviction.LRU);
+        List<GameState<Integer>> states = openings();
+        NeuralNetworkOutput<Integer> first = new NeuralNetworkOutput<>();
+        cache.put(states.get(0), first);
+        cache.put(states.get(1), new NeuralNetworkOutput<>());
+        assertSame(first, cache.get(states.get(0)));
+        cache.put(states.get(2), new NeuralNetworkOutput<>());
+        assertSame(first, cache.get(states.get(0)));
+        assertNull(cache.get(states.get(1)));
+    }
+
+    @Test
+    public void clockGivesReferencedEntriesASecondChance() {
+        checkEvictsToCapacity(EvaluationCache.Eviction.CLOCK);
+
+        EvaluationCache<Integer> cache = new EvaluationCache<>(2, EvaluationCache.Eviction.CLOCK);
+        List<GameState<Integer>> states = openings();
+        NeuralNetworkOutput<Integer> first = new NeuralNetworkOutput<>();
+        cache.put(states.get(0), first);
+        cache.put(states.get(1), new NeuralNetworkOutput<>());
+        assertSame(first, cache.get(states.get(0)));
+        cache.put(states.get(2), new NeuralNetworkOutput<>());
+        assertSame(first, cache.get(states.get(0)));
+        assertNull(cache.get(states.get(1)));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        EvaluationCache<Integer> cache = new EvaluationCache<>(16, EvaluationCache.Eviction.CLOCK);
+        GameState<Integer> state = new TicTacToeState().takeAction(4);
+        assertNull(cache.get(state));
+        cache.put(state, new NeuralNetworkOutput<>());
+        // A transposition reaches the same position by a different move order
+        GameState<Integer> transposed = new TicTacToeState().takeAction(0).takeAction(8).takeAction(4);
+        GameState<Integer> direct = new TicTacToeState().takeAction(4).takeAction(8).takeAction(0);
+        cache.put(direct, new NeuralNetworkOutput<>());
+        assertNotNull(cache.get(state));
+        assertNotNull(cache.get(transposed));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -0,0 +1,41 @@
+import chess.ChessGameState;
+import chess.ChessMove;
+import chess.MaterialEvaluator;
+import main.CappedRolloutEvaluator;
+import main.GameState;
+import main.RolloutEvaluator;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EvaluatorTest {
+
+    @Test
+    public void rolloutScoresFinishedGameForPlayerToMove() {
+        // X takes the top row; O is to move and has lost
+        GameState<Integer> state = new TicTacToeState();
+        for (int cell : new int[]{0, 3, 1, 4, 2}) {
+            state = state.takeAction(cell);
+        }
+        assertEquals(-1.0, new RolloutEvaluator<Integer>().evaluate(state).valueHead, 0.0);
+    }
+
+    @Test
+    public void materialIsScoredForPlayerToMove() {
+        MaterialEvaluator evaluator = new MaterialEvaluator();
+        GameState<ChessMove> state = new ChessGameState();
+        assertEquals(0.0, evaluator.evaluate(state).valueHead, 0.0);
+
+        // 1. e4 d5 2. exd5: White is a pawn up and Black is to move
+        state = state.takeAction(new ChessMove(6, 4, 4, 4))
+                .takeAction(new ChessMove(1, 3, 3, 3))
+                .takeAction(new ChessMove(4, 4, 3, 3));
+        double value = evaluator.evaluate(state).valueHead;
+        assertTrue(value < 0);
+
+        // Without any rollout moves the capped evaluator is the static evaluation
+        assertEquals(value, new CappedRolloutEvaluator<>(0, evaluator).evaluate(state).valueHead, 0.0);
+    }
+}
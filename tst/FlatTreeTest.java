@@ -0,0 +1,60 @@
+import main.FlatTree;
+import main.GameState;
+import main.MCTS;
+import main.Node;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class FlatTreeTest {
+
+    private static GameState<Integer> play(int... cells) {
+        GameState<Integer> state = new TicTacToeState();
+        for (int cell : cells) {
+            state = state.takeAction(cell);
+        }
+        return state;
+    }
+
+    @Test
+    public void flatAndNodeSearchChooseTheForcedMove() {
+        // X has 0 and 1, O has 3 and 4: X wins at 2, which also blocks O
+        GameState<Integer> state = play(0, 3, 1, 4);
+        MCTS<Integer> mcts = new MCTS<>();
+
+        FlatTree<Integer> tree = mcts.runFlat(state, 2000, 100_000);
+        assertEquals(2, (int) tree.getAction(tree.getBestChild(FlatTree.ROOT)));
+
+        Node<Integer> root = mcts.run(state, 2000);
+        assertEquals(2, (int) root.getVisitDistribution(1.0).keySet().iterator().next());
+    }
+
+    @Test
+    public void fullTreeKeepsSimulatingFromItsLeaves() {
+        // Room for the root and its 9 children only
+        FlatTree<Integer> tree = new MCTS<Integer>().runFlat(new TicTacToeState(), 1000, 10);
+        assertEquals(10, tree.size());
+        assertEquals(1000, tree.getVisitCount(FlatTree.ROOT));
+
+        int childVisits = 0;
+        int first = tree.getFirstChild(FlatTree.ROOT);
+        for (int child = first; child < first + tree.getChildCount(FlatTree.ROOT); child++) {
+            assertFalse(tree.isExpanded(child));
+            childVisits += tree.getVisitCount(child);
+        }
+        assertEquals(1000, childVisits);
+    }
+
+    @Test
+    public void rootThatDoesNotFitIsNeverExpanded() {
+        MCTS<Integer> mcts = new MCTS<>();
+        FlatTree<Integer> tree = mcts.runFlat(new TicTacToeState(), 100, 5);
+        assertEquals(1, tree.size());
+        assertEquals(100, tree.getVisitCount(FlatTree.ROOT));
+        assertEquals(-1, tree.getBestChild(FlatTree.ROOT));
+        assertNull(mcts.getBestAction(tree));
+    }
+}
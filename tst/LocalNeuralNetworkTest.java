@@ -0,0 +1,79 @@
+import main.LocalNeuralNetwork;
+import main.NeuralNetworkOutput;
+import main.TrainingExample;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LocalNeuralNetworkTest {
+
+    private TrainingExample<Integer> example(int currentPlayer, int... cells) {
+        int[][] board = new int[3][3];
+        for (int i = 0; i < 9; i++) {
+            board[i / 3][i % 3] = cells[i];
+        }
+        return new TrainingExample<>(board, null, 0, currentPlayer);
+    }
+
+    /**
+     * Identity convolution, then a policy head that passes the board through a softmax and a value
+     * head that sums the board and the player plane.
+     */
+    private LocalNeuralNetwork<Integer> network() {
+        float[] identity = new float[2 * 2 * 9];
+        identity[4] = 1;           // board plane to board plane, kernel centre
+        identity[18 + 9 + 4] = 1;  // player plane to player plane
+        LocalNeuralNetwork.Layer conv = new LocalNeuralNetwork.ConvLayer(2, 2, 3, 3, 3, identity, new float[2],
+                LocalNeuralNetwork.RELU);
+
+        float[] select = new float[9 * 18];
+        for (int i = 0; i < 9; i++) {
+            select[i * 18 + i] = 1;
+        }
+        LocalNeuralNetwork.Layer policy = new LocalNeuralNetwork.DenseLayer(18, 9, select, new float[9],
+                LocalNeuralNetwork.SOFTMAX);
+
+        float[] sum = new float[18];
+        java.util.Arrays.fill(sum, 0.1f);
+        LocalNeuralNetwork.Layer value = new LocalNeuralNetwork.DenseLayer(18, 1, sum, new float[]{-0.2f},
+                LocalNeuralNetwork.TANH);
+
+        return new LocalNeuralNetwork<>(2, 3, 3, List.of(conv), List.of(policy), List.of(value));
+    }
+
+    @Test
+    public void evaluatesConvAndDenseLayers() {
+        NeuralNetworkOutput<Integer> output = network().predict(example(1, 1, 0, 0, 0, 1, 0, 0, 0, 0));
+
+        // The relu zeroes nothing here; 2 board cells plus 9 player cells of 1, times 0.1, minus 0.2
+        assertEquals(Math.tanh(0.9), output.valueHead, 1e-6);
+
+        double e = Math.E;
+        float high = (float) (e / (2 * e + 7));
+        float low = (float) (1 / (2 * e + 7));
+        assertArrayEquals(new float[]{high, low, low, low, high, low, low, low, low}, output.policy, 1e-6f);
+        assertEquals(high, output.policyHead.get(4), 1e-6);
+    }
+
+    @Test
+    public void savedWeightsLoadBack() throws Exception {
+        LocalNeuralNetwork<Integer> network = network();
+        Path file = Files.createTempFile("weights", ".bin");
+        try {
+            network.save(file);
+            LocalNeuralNetwork<Integer> loaded = LocalNeuralNetwork.load(file);
+            TrainingExample<Integer> input = example(-1, 1, -1, 0, 0, 1, 0, -1, 0, 0);
+            NeuralNetworkOutput<Integer> expected = network.predict(input);
+            NeuralNetworkOutput<Integer> actual = loaded.predict(input);
+            assertEquals(expected.valueHead, actual.valueHead, 0.0);
+            assertArrayEquals(expected.policy, actual.policy, 0.0f);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
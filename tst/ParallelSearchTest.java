@@ -0,0 +1,80 @@
+import main.GameState;
+import main.MCTS;
+import main.Node;
+import main.SearchConfig;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelSearchTest {
+
+    /**
+     * Checks that every visit below {@code node} is a finished playout: a node's visits are its
+     * own playout, if it is not the root, plus its children's visits. Virtual loss left behind
+     * would add visits no playout accounts for.
+     */
+    private static int checkVisits(Node<Integer> node, GameState<Integer> state, boolean root) {
+        if (state.isTerminal()) {
+            assertTrue(node.getVisitCount() > 0);
+            return node.getVisitCount();
+        }
+        int childVisits = 0;
+        for (Integer action : state.getLegalActions()) {
+            Node<Integer> child = node.getChild(action);
+            if (child != null) {
+                childVisits += checkVisits(child, state.takeAction(action), false);
+            }
+        }
+        assertEquals(childVisits + (root ? 0 : 1), node.getVisitCount());
+        return node.getVisitCount();
+    }
+
+    @Test
+    public void treeParallelSearchRemovesAllVirtualLoss() {
+        GameState<Integer> state = new TicTacToeState().takeAction(4);
+        Node<Integer> root = new MCTS<Integer>().runParallel(state, 5000, 4);
+
+        assertEquals(5000, root.getVisitCount());
+        checkVisits(root, state, true);
+
+        // Every result reaches the root with its sign flipped from the child it passed through
+        double childValue = 0.0;
+        for (Integer action : state.getLegalActions()) {
+            childValue += root.getChild(action).getTotalValue();
+        }
+        assertEquals(-childValue, root.getTotalValue(), 1e-6);
+    }
+
+    @Test
+    public void rootParallelMergesTheVisitsOfEveryTree() {
+        GameState<Integer> state = new TicTacToeState();
+        // 1001 iterations do not divide evenly, so the trees get different shares
+        Node<Integer> root = new MCTS<Integer>().run(state, 1001, SearchConfig.root(4));
+
+        assertEquals(1001, root.getVisitCount());
+        int childVisits = 0;
+        double childValue = 0.0;
+        for (Integer action : state.getLegalActions()) {
+            Node<Integer> child = root.getChild(action);
+            childVisits += child.getVisitCount();
+            childValue += child.getTotalValue();
+        }
+        assertEquals(1001, childVisits);
+        assertEquals(-childValue, root.getTotalValue(), 1e-6);
+    }
+
+    @Test
+    public void leafParallelRunsOnePlayoutPerThreadForEachLeaf() {
+        GameState<Integer> state = new TicTacToeState();
+        Node<Integer> root = new MCTS<Integer>().run(state, 200, SearchConfig.leaf(4));
+
+        assertEquals(800, root.getVisitCount());
+        for (Integer action : state.getLegalActions()) {
+            Node<Integer> child = root.getChild(action);
+            assertEquals(0, child.getVisitCount() % 4);
+            assertTrue(child.getVisitCount() > 0);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import main.GameState;
+import main.PlayoutBoard;
+import main.RolloutEvaluator;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlayoutTest {
+
+    @Test
+    public void ticTacToeBoardFollowsState() {
+        Random random = new Random(7);
+        PlayoutBoard board = new TicTacToeState().newPlayoutBoard();
+        int[] actions = new int[board.getActionCount()];
+        for (int game = 0; game < 200; game++) {
+            GameState<Integer> state = new TicTacToeState();
+            assertTrue(board.load(state));
+            while (!state.isTerminal()) {
+                List<Integer> legal = state.getLegalActions();
+                int count = board.legalActions(actions);
+                assertEquals(legal.size(), count);
+                for (int i = 0; i < count; i++) {
+                    assertEquals((int) legal.get(i), actions[i]);
+                }
+                int action = legal.get(random.nextInt(legal.size()));
+                state = state.takeAction(action);
+                board.play(action);
+                assertEquals(state.getCurrentPlayer(), board.getCurrentPlayer());
+                assertEquals(state.isTerminal(), board.isTerminal());
+            }
+            assertEquals(state.getReward(0), board.getReward(0), 0.0);
+            assertEquals(state.getReward(1), board.getReward(1), 0.0);
+        }
+    }
+
+    /**
+     * Once warm, tic-tac-toe playouts on the fast path allocate nothing.
+     */
+    @Test
+    public void ticTacToePlayoutDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        RolloutEvaluator<Integer> evaluator = new RolloutEvaluator<>();
+        GameState<Integer> state = new TicTacToeState();
+
+        double sum = 0;
+        for (int i = 0; i < 20_000; i++) {
+            sum += evaluator.playout(state);
+        }
+
+        int playouts = 200_000;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < playouts; i++) {
+            sum += evaluator.playout(state);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        // Only the allocation counter itself may show up
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        // The first player wins most random games
+        assertTrue(sum > 0);
+    }
+}
@@ -0,0 +1,106 @@
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import main.ReplayBuffer;
+import main.TrainingExample;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayBufferTest {
+
+    @Test
+    public void evictsOldestFirst() {
+        ReplayBuffer buffer = new ReplayBuffer(5, 3, 3, 9, 0.6);
+        for (int id = 0; id < 12; id++) {
+            buffer.add(TrainingExamples.example(id));
+        }
+        assertEquals(5, buffer.size());
+        assertEquals(12, buffer.totalAdded());
+
+        ReplayBuffer.Batch batch = buffer.sampleUniform(200, new SplittableRandom(1));
+        for (int i = 0; i < batch.size; i++) {
+            int id = TrainingExamples.id(batch.values[i]);
+            assertTrue(id >= 7);
+            // The stone and the policy peak come from the same example as the value
+            assertEquals(batch.currentPlayers[i], batch.boards[i * 9 + id % 9]);
+            assertEquals(0.6f, batch.policies[i * 9 + id % 9], 0.0f);
+        }
+
+        TrainingExample<Integer> example = batch.<Integer>toTrainingExamples().get(0);
+        TrainingExamples.assertSameExample(TrainingExamples.example(TrainingExamples.id(example.value)), example, 1e-6);
+    }
+
+    @Test
+    public void prioritizedSamplingFollowsPriorities() {
+        ReplayBuffer buffer = new ReplayBuffer(4, 3, 3, 9, 1.0);
+        for (int id = 0; id < 4; id++) {
+            buffer.add(TrainingExamples.example(id));
+        }
+        SplittableRandom random = new SplittableRandom(7);
+
+        // Make position 3 nine times as likely as each of the others
+        ReplayBuffer.Batch all = buffer.sampleUniform(64, random);
+        float[] priorities = new float[all.size];
+        for (int i = 0; i < all.size; i++) {
+            priorities[i] = TrainingExamples.id(all.values[i]) == 3 ? 9.0f : 1.0f;
+        }
+        buffer.updatePriorities(all, priorities);
+
+        ReplayBuffer.Batch batch = buffer.samplePrioritized(12000, 1.0, random);
+        int favourite = 0;
+        for (int i = 0; i < batch.size; i++) {
+            if (TrainingExamples.id(batch.values[i]) == 3) {
+                favourite++;
+                assertEquals(1.0f / 9, batch.weights[i], 1e-6f);
+            } else {
+                assertEquals(1.0f, batch.weights[i], 1e-6f);
+            }
+        }
+        assertEquals(0.75, favourite / 12000.0, 0.02);
+    }
+
+    @Test
+    public void concurrentAppendsAreAllCounted() throws Exception {
+        ReplayBuffer buffer = new ReplayBuffer(1000, 3, 3, 9, 0.6);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int id = 0; id < 500; id++) {
+                    buffer.add(TrainingExamples.example(id % 100));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, buffer.totalAdded());
+        assertEquals(1000, buffer.size());
+    }
+
+    @Test
+    public void batchJsonMatchesSerialisedTrainingExamples() throws IOException {
+        ReplayBuffer buffer = new ReplayBuffer(10, 3, 3, 9, 0.6);
+        for (int id = 0; id < 4; id++) {
+            TrainingExample<Integer> example = TrainingExamples.example(id);
+            example.policy.set(1, 0.1);
+            buffer.add(example);
+        }
+        ReplayBuffer.Batch batch = buffer.sampleUniform(6, new SplittableRandom(3));
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(json)) {
+            batch.writeJson(generator);
+        }
+        assertEquals(mapper.readTree(mapper.writeValueAsString(batch.toTrainingExamples())), mapper.readTree(json.toString()));
+    }
+}
@@ -0,0 +1,60 @@
+import main.GameState;
+import main.MCTS;
+import main.Node;
+import main.SearchConfig;
+import main.SearchLimits;
+import main.SearchSession;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchLimitsTest {
+
+    @Test
+    public void stopsAtTheDeadline() {
+        MCTS<Integer> mcts = new MCTS<>();
+        for (SearchConfig config : new SearchConfig[]{SearchConfig.sequential(), SearchConfig.tree(4), SearchConfig.root(4)}) {
+            long start = System.nanoTime();
+            Node<Integer> root = mcts.run(new TicTacToeState(), SearchLimits.millis(100), config);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // Only an upper bound, with room for a loaded machine: an unlimited search would never return
+            assertTrue(config + " took " + elapsed + " ms", elapsed < 5000);
+            assertTrue(root.getVisitCount() > 0);
+        }
+    }
+
+    @Test
+    public void stopsEarlyOnceTheBestMoveIsDecided() {
+        // X on 0 and 1, O on 3 and 4: X wins at 2
+        GameState<Integer> state = new TicTacToeState().takeAction(0).takeAction(3).takeAction(1).takeAction(4);
+        MCTS<Integer> mcts = new MCTS<>();
+        Node<Integer> root = mcts.run(state, SearchLimits.iterations(100_000).withEarlyStop());
+        assertTrue(root.getVisitCount() < 100_000);
+        assertEquals(Integer.valueOf(2), mcts.getBestAction(root));
+
+        // With a single legal move there is nothing to search
+        GameState<Integer> forced = new TicTacToeState().takeAction(0).takeAction(1).takeAction(2).takeAction(4)
+                .takeAction(3).takeAction(5).takeAction(7).takeAction(6);
+        assertEquals(1, forced.getLegalActions().size());
+        assertTrue(mcts.run(forced, SearchLimits.iterations(100_000).withEarlyStop()).getVisitCount() <= 16);
+    }
+
+    @Test
+    public void runningSearchCanBeReadAndStopped() throws InterruptedException {
+        SearchSession<Integer> session = new SearchSession<>(new MCTS<>(), new TicTacToeState(), SearchConfig.tree(2));
+        Thread search = new Thread(() -> session.search(SearchLimits.unlimited()));
+        search.start();
+        Thread.sleep(100);
+
+        assertNotNull(session.getBestAction());
+        session.stop();
+        search.join(1000);
+        assertFalse(search.isAlive());
+    }
+}
@@ -0,0 +1,84 @@
+import main.GameState;
+import main.MCTS;
+import main.SearchConfig;
+import main.SearchLimits;
+import main.SearchSession;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchSessionTest {
+
+    private void keepsSubtreeStatistics(MCTS<Integer> mcts, SearchConfig config) {
+        GameState<Integer> state = new TicTacToeState();
+        SearchSession<Integer> session = new SearchSession<>(mcts, state, config);
+
+        session.search(2000);
+        Integer move = session.getBestAction();
+        session.advance(move);
+        int kept = session.getRoot().getVisitCount();
+        assertTrue(kept > 100);
+        assertEquals(state.takeAction(move).positionKey(), session.getState().positionKey());
+
+        // Further searching adds to the kept visits
+        assertTrue(session.search(500).getVisitCount() > kept + 400);
+
+        Integer reply = session.getBestAction();
+        session.advance(reply);
+        assertTrue(session.getRoot().getVisitCount() > 0);
+        assertEquals(state.takeAction(move).takeAction(reply).positionKey(), session.getState().positionKey());
+    }
+
+    @Test
+    public void keepsSubtreeStatisticsSequential() {
+        keepsSubtreeStatistics(new MCTS<>(), SearchConfig.sequential());
+    }
+
+    @Test
+    public void keepsSubtreeStatisticsWithTranspositionsInParallel() {
+        MCTS<Integer> mcts = new MCTS<>();
+        mcts.setTranspositionTableSize(8192);
+        keepsSubtreeStatistics(mcts, SearchConfig.tree(4));
+    }
+
+    @Test
+    public void unsearchedMoveStartsFromEmptyNode() {
+        SearchSession<Integer> session = new SearchSession<>(new MCTS<>(), new TicTacToeState());
+        session.advance(4);
+        assertEquals(0, session.getRoot().getVisitCount());
+        assertEquals(8, session.getState().getLegalActions().size());
+    }
+
+    @Test
+    public void ponderedSearchIsKeptForTheMovePlayed() throws InterruptedException {
+        SearchSession<Integer> session = new SearchSession<>(new MCTS<>(), new TicTacToeState());
+        session.advance(4);
+        session.startPondering();
+        assertTrue(session.isPondering());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (session.getRoot().getVisitCount() < 2000) {
+            assertTrue("pondering made no progress", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+
+        // Every reply was tried, so the opponent's move lands on a searched subtree
+        session.advance(0);
+        assertFalse(session.isPondering());
+        assertTrue(session.getRoot().getVisitCount() > 0);
+        assertEquals(new TicTacToeState().takeAction(4).takeAction(0).positionKey(), session.getState().positionKey());
+    }
+
+    @Test
+    public void stoppedPonderingLeavesRootUnchanged() {
+        SearchSession<Integer> session = new SearchSession<>(new MCTS<>(), new TicTacToeState());
+        session.startPondering(SearchLimits.iterations(300));
+        long pondered = session.stopPondering();
+        assertFalse(session.isPondering());
+        assertTrue(pondered <= 300);
+        assertEquals(9, session.getState().getLegalActions().size());
+        assertEquals(0, session.stopPondering());
+    }
+}
@@ -0,0 +1,87 @@
+import main.Evaluator;
+import main.GameState;
+import main.MCTSAlpha;
+import main.TrainingExample;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SelfPlayStreamingTest {
+    private static final GameState<Integer> START = new TicTacToeState();
+
+    /**
+     * Uniform evaluator counting the games started: every game's search begins by evaluating the
+     * empty board, which no later position repeats.
+     */
+    private static Evaluator<Integer> countingStarts(AtomicInteger started) {
+        return state -> {
+            if (state.positionKey() == START.positionKey()) {
+                started.incrementAndGet();
+            }
+            return Evaluator.valueOnly(0.0);
+        };
+    }
+
+    @Test
+    public void slowSinkHoldsBackThePlayers() {
+        int games = 2 * Runtime.getRuntime().availableProcessors() + 8;
+        int players = Math.min(games, Runtime.getRuntime().availableProcessors());
+        int queueCapacity = 1;
+        AtomicInteger started = new AtomicInteger();
+        List<List<TrainingExample<Integer>>> received = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        long streamed = new MCTSAlpha<Integer>().selfPlayStreaming(START, 4, 4, games, countingStarts(started), queueCapacity, game -> {
+            assertSame(caller, Thread.currentThread());
+            // Unconsumed games: the queue, one per player blocked on it or still playing, and this one
+            assertTrue(started.get() - received.size() <= queueCapacity + players + 1);
+            received.add(game);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertEquals(games, received.size());
+        long examples = 0;
+        for (List<TrainingExample<Integer>> game : received) {
+            // Whole games arrive, each starting from the empty board
+            assertFalse(game.isEmpty());
+            assertArrayEquals(new int[3][3], game.get(0).board);
+            examples += game.size();
+        }
+        assertEquals(examples, streamed);
+    }
+
+    @Test
+    public void failedGamesAreRethrownAfterTheOthersFinish() {
+        AtomicInteger started = new AtomicInteger();
+        Evaluator<Integer> failingSecondGame = state -> {
+            if (state.positionKey() == START.positionKey() && started.incrementAndGet() == 2) {
+                throw new IllegalArgumentException("broken network");
+            }
+            return Evaluator.valueOnly(0.0);
+        };
+        List<List<TrainingExample<Integer>>> received = new ArrayList<>();
+
+        try {
+            new MCTSAlpha<Integer>().selfPlayStreaming(START, 4, 4, 4, failingSecondGame, 2, received::add);
+            fail("expected the failed game to be reported");
+        } catch (IllegalStateException e) {
+            assertEquals("1 of 4 self-play games failed", e.getMessage());
+            assertEquals("broken network", e.getCause().getMessage());
+        }
+        assertEquals(3, received.size());
+    }
+}
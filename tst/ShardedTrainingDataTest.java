@@ -0,0 +1,53 @@
+import main.ShardedTrainingDataReader;
+import main.ShardedTrainingDataWriter;
+import main.TrainingExample;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedTrainingDataTest {
+
+    @Test
+    public void rollsShardsAndReadsBackThroughIndex() throws IOException {
+        Path directory = Files.createTempDirectory("shards");
+        try {
+            // 100 records per chunk and 1000 per shard: 2350 records make 24 chunks over 3 shards
+            try (ShardedTrainingDataWriter writer = new ShardedTrainingDataWriter(directory, "games", 3, 3, 9,
+                    100, 1000, Long.MAX_VALUE)) {
+                List<TrainingExample<Integer>> game = new ArrayList<>();
+                for (int id = 0; id < 2350; id++) {
+                    game.add(TrainingExamples.example(id));
+                    if (game.size() == 47) {
+                        writer.writeAll(game);
+                        game.clear();
+                    }
+                }
+                writer.writeAll(game);
+                assertEquals(2350, writer.count());
+            }
+            assertTrue(Files.exists(directory.resolve("games-00002.ritz")));
+            assertTrue(Files.notExists(directory.resolve("games-00003.ritz")));
+
+            try (ShardedTrainingDataReader reader = new ShardedTrainingDataReader(directory, "games")) {
+                assertEquals(2350, reader.size());
+                for (int id : new int[]{0, 99, 100, 999, 1000, 2349, 1234}) {
+                    // Shards store float16 policies
+                    TrainingExamples.assertSameExample(TrainingExamples.example(id), reader.get(id), 5e-4);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
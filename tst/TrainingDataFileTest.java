@@ -0,0 +1,44 @@
+import main.TrainingDataReader;
+import main.TrainingDataWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrainingDataFileTest {
+
+    private void roundTrip(boolean halfPrecision, double tolerance) throws IOException {
+        Path file = Files.createTempFile("training", ".ritd");
+        try {
+            try (TrainingDataWriter writer = new TrainingDataWriter(file, 3, 3, 9, halfPrecision)) {
+                for (int id = 0; id < 5000; id++) {
+                    writer.write(TrainingExamples.example(id));
+                }
+                assertEquals(5000, writer.count());
+            }
+
+            try (TrainingDataReader reader = new TrainingDataReader(file)) {
+                assertEquals(5000, reader.size());
+                // Random access in no particular order
+                for (int id : new int[]{4999, 0, 2718, 17}) {
+                    TrainingExamples.assertSameExample(TrainingExamples.example(id), reader.get(id), tolerance);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void roundTripsFloat32Policies() throws IOException {
+        roundTrip(false, 1e-7);
+    }
+
+    @Test
+    public void roundTripsFloat16Policies() throws IOException {
+        roundTrip(true, 5e-4);
+    }
+}
@@ -0,0 +1,52 @@
+import main.TrainingExample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tic-tac-toe training examples for the storage tests. Each is built from an id that its value
+ * encodes, so a stored copy can be traced back to the example it came from.
+ */
+public class TrainingExamples {
+
+    private TrainingExamples() {
+    }
+
+    /**
+     * Example for {@code id} below 10000: the player to move has a stone on cell {@code id % 9},
+     * which also gets most of the policy.
+     */
+    public static TrainingExample<Integer> example(int id) {
+        int player = id % 2 == 0 ? 1 : -1;
+        int[][] board = new int[3][3];
+        board[(id % 9) / 3][id % 3] = player;
+        List<Double> policy = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            policy.add(i == id % 9 ? 0.6 : 0.05);
+        }
+        return new TrainingExample<>(board, policy, id / 10000.0, player);
+    }
+
+    /**
+     * Id of the example a stored value belongs to.
+     */
+    public static int id(double value) {
+        return (int) Math.round(value * 10000);
+    }
+
+    public static void assertSameExample(TrainingExample<?> expected, TrainingExample<?> actual, double policyTolerance) {
+        assertEquals(expected.board.length, actual.board.length);
+        for (int r = 0; r < expected.board.length; r++) {
+            assertArrayEquals(expected.board[r], actual.board[r]);
+        }
+        assertEquals(expected.current_player, actual.current_player);
+        assertEquals(expected.value, actual.value, 1e-6);
+        assertEquals(expected.policy.size(), actual.policy.size());
+        for (int i = 0; i < expected.policy.size(); i++) {
+            assertEquals(expected.policy.get(i), actual.policy.get(i), policyTolerance);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import main.GameState;
+import main.MCTS;
+import main.Node;
+import main.SearchConfig;
+import main.TranspositionTable;
+import org.junit.Test;
+import tictac.TicTacToeState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void sharesNodesAndReplacesLeastVisited() {
+        // Capacity 4 is a single bucket, so every key competes for the same slots
+        TranspositionTable<Integer> table = new TranspositionTable<>(4);
+        GameState<Integer> state = new TicTacToeState();
+        MCTS<Integer> mcts = new MCTS<>();
+        int[] visits = {50, 10, 70, 30};
+        List<Node<Integer>> nodes = new ArrayList<>();
+        for (int key = 0; key < 4; key++) {
+            // Roots of searches, so each node has as many visits as iterations
+            nodes.add(mcts.run(state, visits[key]));
+            assertSame(nodes.get(key), table.putIfAbsent(key, nodes.get(key)));
+        }
+        assertSame(nodes.get(2), table.putIfAbsent(2, new Node<>(state, null)));
+        assertEquals(1, table.getHits());
+
+        Node<Integer> newcomer = new Node<>(state, null);
+        assertSame(newcomer, table.putIfAbsent(4, newcomer));
+        assertEquals(4, table.size());
+        assertEquals(1, table.getReplacements());
+        assertNull(table.get(1));
+        assertSame(nodes.get(0), table.get(0));
+        assertSame(newcomer, table.get(4));
+    }
+
+    @Test
+    public void searchWithTranspositionsFindsTheWin() {
+        // X on 0 and 1, O on 3 and 4: X wins at 2, and must do so before O wins at 5
+        GameState<Integer> state = new TicTacToeState().takeAction(0).takeAction(3).takeAction(1).takeAction(4);
+        MCTS<Integer> mcts = new MCTS<>();
+        mcts.setTranspositionTableSize(1024);
+
+        assertEquals(Integer.valueOf(2), mcts.getBestAction(mcts.run(state, 2000)));
+        assertEquals(Integer.valueOf(2), mcts.getBestAction(mcts.run(state, 2000, SearchConfig.tree(4))));
+    }
+}
@@ -0,0 +1,52 @@
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+
+public class VectorOpsTest {
+
+    private interface Dot {
+        float dot(float[] a, int aOffset, float[] b, int bOffset, int length) throws ReflectiveOperationException;
+    }
+
+    /**
+     * {@code dot} of the package-private implementation {@code className}.
+     */
+    private static Dot dot(String className) throws ReflectiveOperationException {
+        Class<?> type = Class.forName(className);
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object ops = constructor.newInstance();
+        Method method = type.getDeclaredMethod("dot", float[].class, int.class, float[].class, int.class, int.class);
+        method.setAccessible(true);
+        return (a, aOffset, b, bOffset, length) -> (float) method.invoke(ops, a, aOffset, b, bOffset, length);
+    }
+
+    @Test
+    public void simdAndScalarDotAgreeOnEveryLength() throws ReflectiveOperationException {
+        Dot simd = dot("main.SimdVectorOps");
+        Dot scalar = dot("main.ScalarVectorOps");
+
+        // Small integers keep every sum exact, whatever order the lanes are added in
+        float[] a = new float[80];
+        float[] b = new float[80];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i % 7 - 3;
+            b[i] = i % 5 - 2;
+        }
+
+        // Lengths up to 67 cover multiples of every vector width up to 16 floats and the tails between
+        for (int length = 0; length <= 67; length++) {
+            for (int offset : new int[]{0, 3}) {
+                float expected = 0;
+                for (int i = 0; i < length; i++) {
+                    expected += a[offset + i] * b[i];
+                }
+                assertEquals("scalar, length " + length, expected, scalar.dot(a, offset, b, 0, length), 0.0f);
+                assertEquals("simd, length " + length, expected, simd.dot(a, offset, b, 0, length), 0.0f);
+            }
+        }
+    }
+}